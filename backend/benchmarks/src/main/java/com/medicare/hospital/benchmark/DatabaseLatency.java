@@ -0,0 +1,93 @@
+package com.medicare.hospital.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds a fixed network round trip to every statement the application runs
+ * 
+ * An embedded H2 database answers in microseconds on the CPU, so a request
+ * never blocks long enough for the request execution mode to matter. A
+ * database on another host costs a round trip per statement execution and
+ * per commit or rollback, during which the request thread sits idle. This
+ * post-processor wraps the application DataSource so each of those calls
+ * first sleeps for the configured time - blocking a platform thread, or
+ * unmounting a virtual one, just as a socket read would.
+ * 
+ * Only the bean named dataSource is wrapped; with read replicas enabled
+ * that is the lazy proxy in front of all pools.
+ */
+public class DatabaseLatency implements BeanPostProcessor {
+    
+    private final long roundTripNanos;
+    
+    public DatabaseLatency(long roundTripMillis) {
+        this.roundTripNanos = TimeUnit.MILLISECONDS.toNanos(roundTripMillis);
+    }
+    
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return delayed(Connection.class, super.getConnection());
+                }
+                
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return delayed(Connection.class, super.getConnection(username, password));
+                }
+            };
+        }
+        return bean;
+    }
+    
+    // Helper methods
+    private <T> T delayed(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (isRoundTrip(method)) {
+                roundTrip();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            // Statements created by the connection are delayed as well
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return delayed(statementType(method), result);
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Class<Object> statementType(Method method) {
+        return (Class<Object>) method.getReturnType();
+    }
+    
+    private static boolean isRoundTrip(Method method) {
+        String name = method.getName();
+        if (Statement.class.isAssignableFrom(method.getDeclaringClass())) {
+            return name.startsWith("execute");
+        }
+        return name.equals("commit") || name.equals("rollback");
+    }
+    
+    private void roundTrip() throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(roundTripNanos);
+    }
+}
@@ -0,0 +1,190 @@
+package com.medicare.hospital.benchmark;
+
+import com.medicare.hospital.HospitalManagementApplication;
+import com.medicare.hospital.dto.PatientDTO;
+import com.medicare.hospital.model.Patient;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bulk loader of synthetic patients into H2 or MySQL
+ * 
+ * Appends dataset.size patients from SyntheticPatients with plain JDBC
+ * batches, bypassing the application, so 10M rows take minutes rather
+ * than hours. If the patients table does not exist yet, the application
+ * is started once without a web server to create the schema. Registration
+ * dates are spread over the last five years. Afterwards the ID generator
+ * is moved past the new rows, so the application can be started on the
+ * database straight away. Runs fully offline.
+ * 
+ * Settings (system properties): dataset.url (an H2 file database under
+ * target/dataset), dataset.username (sa), dataset.password (empty),
+ * dataset.size (100000), dataset.seed (42), dataset.batchSize (5000).
+ * For MySQL add rewriteBatchedStatements=true to the URL.
+ */
+public class DatasetGenerator {
+    
+    public static final String DEFAULT_URL = "jdbc:h2:file:./target/dataset/hospital";
+    
+    // Must match the @TableGenerator of Patient.id
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final int REGISTRATION_DAYS = 5 * 365;
+    
+    private static final String INSERT = "INSERT INTO patients (id, first_name, last_name, email, phone_number,"
+        + " phone_reversed, date_of_birth, gender, address, emergency_contact, medical_history, insurance,"
+        + " created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("dataset.url", DEFAULT_URL);
+        String username = System.getProperty("dataset.username", "sa");
+        String password = System.getProperty("dataset.password", "");
+        int size = Integer.getInteger("dataset.size", 100_000);
+        long seed = Long.getLong("dataset.seed", 42L);
+        int batchSize = Integer.getInteger("dataset.batchSize", 5000);
+        
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            if (!tableExists(connection, "patients")) {
+                System.out.println("Creating schema");
+                createSchema(url, username, password);
+            }
+            connection.setAutoCommit(false);
+            long firstId = maxId(connection) + 1;
+            System.out.printf("Generating %d patients from ID %d into %s%n", size, firstId, url);
+            
+            // Sequence numbers follow the IDs, so emails stay unique when appending to a dataset
+            SyntheticPatients generator = new SyntheticPatients(seed + firstId, firstId);
+            Random random = new Random(seed);
+            LocalDateTime now = LocalDateTime.now();
+            long start = System.nanoTime();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                for (int done = 0; done < size; ) {
+                    int batch = Math.min(batchSize, size - done);
+                    for (PatientDTO patient : generator.next(batch)) {
+                        LocalDateTime createdAt = now.minusSeconds(random.nextInt(REGISTRATION_DAYS * 86_400));
+                        bind(insert, firstId + done, patient, createdAt);
+                        insert.addBatch();
+                        done++;
+                    }
+                    insert.executeBatch();
+                    connection.commit();
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%,d / %,d patients (%,.0f rows/s)%n", done, size, done / seconds);
+                }
+            }
+            
+            long maxId = maxId(connection);
+            seedIdGenerator(connection, maxId);
+            connection.commit();
+            System.out.printf("Done: patients up to ID %d, ID generator moved past them%n", maxId);
+        }
+    }
+    
+    // Helper methods
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[] { table, table.toUpperCase() }) {
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[] { "TABLE" })) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    // Let Hibernate create the tables and indexes exactly as the application maps them
+    private static void createSchema(String url, String username, String password) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=" + url);
+        args.add("--spring.datasource.username=" + username);
+        args.add("--spring.datasource.password=" + password);
+        if (url.startsWith("jdbc:h2:")) {
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        }
+        args.add("--spring.jpa.hibernate.ddl-auto=update");
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--logging.level.root=WARN");
+        args.add("--logging.level.com.medicare.hospital=WARN");
+        args.add("--logging.level.org.hibernate.SQL=WARN");
+        args.add("--logging.level.org.hibernate.orm.jdbc.bind=WARN");
+        new SpringApplicationBuilder(HospitalManagementApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(args.toArray(new String[0]))
+            .close();
+    }
+    
+    private static long maxId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM patients")) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+    
+    private static void bind(PreparedStatement insert, long id, PatientDTO patient, LocalDateTime createdAt)
+            throws SQLException {
+        insert.setLong(1, id);
+        insert.setString(2, patient.getFirstName());
+        insert.setString(3, patient.getLastName());
+        insert.setString(4, patient.getEmail());
+        insert.setString(5, patient.getPhone());
+        insert.setString(6, patient.getPhone() == null ? null : Patient.reverseDigits(patient.getPhone()));
+        insert.setDate(7, Date.valueOf(patient.getDateOfBirth()));
+        if (patient.getGender() == null) {
+            insert.setNull(8, Types.VARCHAR);
+        } else {
+            insert.setString(8, patient.getGender().name());
+        }
+        insert.setString(9, patient.getAddress());
+        insert.setString(10, patient.getEmergencyContact());
+        insert.setString(11, patient.getMedicalHistory());
+        insert.setString(12, patient.getInsurance());
+        insert.setTimestamp(13, Timestamp.valueOf(createdAt));
+        insert.setTimestamp(14, Timestamp.valueOf(createdAt));
+    }
+    
+    /**
+     * Hibernate's pooled optimizer treats next_val as the upper end of the
+     * next block, handing out next_val - 49 to next_val, so the stored value
+     * must be at least maxId + 50
+     */
+    private static void seedIdGenerator(Connection connection, long maxId) throws SQLException {
+        long nextValue = maxId + ID_ALLOCATION_SIZE;
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE id_generator SET next_val = ? WHERE name = 'patients' AND next_val < ?")) {
+            update.setLong(1, nextValue);
+            update.setLong(2, nextValue);
+            if (update.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT next_val FROM id_generator WHERE name = 'patients'")) {
+            try (ResultSet result = select.executeQuery()) {
+                if (result.next()) {
+                    return;
+                }
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO id_generator (name, next_val) VALUES ('patients', ?)")) {
+            insert.setLong(1, nextValue);
+            insert.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.medicare.hospital.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.medicare.hospital.HospitalManagementApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load test of the PatientController endpoints
+ * 
+ * Requests arrive as a Poisson process at a fixed rate, independent of how
+ * fast the server answers, and each one is sent to an endpoint drawn from a
+ * weighted mix. Latency is measured from the time a request was scheduled
+ * to arrive, not from when it was actually sent, so a stalled server shows
+ * up in the percentiles instead of silently lowering the offered load
+ * (coordinated omission). Each rate step is reported per endpoint as
+ * throughput, HDR latency percentiles and errors; the full percentile
+ * distributions are written to target/loadtest as .hgrm files.
+ * 
+ * By default the application is started on a random port against the
+ * database filled by DatasetGenerator; set loadtest.baseUrl to test a
+ * running instance instead. Runs fully offline.
+ * 
+ * Settings (system properties): loadtest.baseUrl (embedded application),
+ * loadtest.datasetUrl / datasetUsername / datasetPassword (as for
+ * DatasetGenerator), loadtest.rates (requests per second, one step each;
+ * 100,200,400), loadtest.warmupSeconds (15, at the first rate),
+ * loadtest.seconds (30 per step), loadtest.maxInFlight (1000),
+ * loadtest.mix (endpoint:weight pairs; get:40,search:15,list:10,
+ * autocomplete:10,filter:10,statistics:5,demographics:5,create:5),
+ * loadtest.virtualThreads (false; runs the embedded application with
+ * spring.threads.virtual.enabled), loadtest.dbLatencyMs (0; simulated
+ * database round trip of the embedded application, see DatabaseLatency),
+ * loadtest.seed (1).
+ */
+public class LoadTestHarness {
+    
+    /**
+     * Endpoints the mix can draw from
+     */
+    public enum Endpoint {
+        GET, SEARCH, LIST, AUTOCOMPLETE, PHONE, FILTER, STATISTICS, DEMOGRAPHICS, INSURANCE, CREATE
+    }
+    
+    private static final String DEFAULT_MIX =
+        "get:40,search:15,list:10,autocomplete:10,filter:10,statistics:5,demographics:5,create:5";
+    private static final String[] QUERIES = { "smith", "maria", "john", "example.org", "patel", "chen", "o'brien" };
+    private static final String[] PREFIXES = { "sm", "jo", "mar", "pat", "wil", "ch", "ng", "ro" };
+    private static final String[] PROVIDERS = { "Medicare", "Aetna", "Blue Cross Blue Shield", "UnitedHealthcare" };
+    private static final Path REPORT_DIRECTORY = Paths.get("target", "loadtest");
+    private static final long REQUEST_TIMEOUT_SECONDS = 30;
+    
+    private final String baseUrl;
+    private final long maxId;
+    private final int maxInFlight;
+    private final Endpoint[] mix;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final ObjectMapper mapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final SyntheticPatients newPatients;
+    private final Map<Endpoint, Recorder> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    
+    private LoadTestHarness(String baseUrl, long maxId, int maxInFlight, Endpoint[] mix, long seed) {
+        this.baseUrl = baseUrl;
+        this.maxId = maxId;
+        this.maxInFlight = maxInFlight;
+        this.mix = mix;
+        // Far above any generated dataset, and different on every run, so created emails never collide
+        this.newPatients = new SyntheticPatients(seed, System.currentTimeMillis() * 1_000_000L);
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new Recorder(3));
+            errors.put(endpoint, new AtomicLong());
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.baseUrl");
+        int[] rates = parseRates(System.getProperty("loadtest.rates", "100,200,400"));
+        int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 15);
+        int seconds = Integer.getInteger("loadtest.seconds", 30);
+        int maxInFlight = Integer.getInteger("loadtest.maxInFlight", 1000);
+        Endpoint[] mix = parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX));
+        long seed = Long.getLong("loadtest.seed", 1L);
+        
+        ConfigurableApplicationContext context = null;
+        if (baseUrl == null) {
+            context = start();
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            long maxId = awaitReady(baseUrl);
+            System.out.printf("%nTesting %s, patient IDs up to %d%n", baseUrl, maxId);
+            LoadTestHarness harness = new LoadTestHarness(baseUrl, maxId, maxInFlight, mix, seed);
+            Files.createDirectories(REPORT_DIRECTORY);
+            
+            System.out.printf("Warming up at %d req/s for %d s%n", rates[0], warmupSeconds);
+            harness.run(rates[0], warmupSeconds, new Random(seed - 1));
+            harness.reset();
+            for (int rate : rates) {
+                harness.run(rate, seconds, new Random(seed + rate));
+                harness.report(rate, seconds, harness.collect());
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+    
+    // Helper methods
+    private static ConfigurableApplicationContext start() {
+        String url = System.getProperty("loadtest.datasetUrl", DatasetGenerator.DEFAULT_URL);
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--spring.threads.virtual.enabled=" + Boolean.getBoolean("loadtest.virtualThreads"));
+        // Measure the endpoints, not authentication
+        args.add("--spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration,"
+            + "org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration");
+        args.add("--spring.datasource.url=" + url);
+        args.add("--spring.datasource.username=" + System.getProperty("loadtest.datasetUsername", "sa"));
+        args.add("--spring.datasource.password=" + System.getProperty("loadtest.datasetPassword", ""));
+        if (url.startsWith("jdbc:h2:")) {
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        }
+        args.add("--spring.jpa.hibernate.ddl-auto=update");
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--logging.level.root=WARN");
+        args.add("--logging.level.com.medicare.hospital=WARN");
+        args.add("--logging.level.com.medicare.hospital.index=INFO");
+        args.add("--logging.level.org.hibernate.SQL=WARN");
+        args.add("--logging.level.org.hibernate.orm.jdbc.bind=WARN");
+        SpringApplicationBuilder application = new SpringApplicationBuilder(HospitalManagementApplication.class);
+        long dbLatencyMillis = Long.getLong("loadtest.dbLatencyMs", 0L);
+        if (dbLatencyMillis > 0) {
+            application.initializers(context -> context.getBeanFactory()
+                .addBeanPostProcessor(new DatabaseLatency(dbLatencyMillis)));
+        }
+        return application.run(args.toArray(new String[0]));
+    }
+    
+    /**
+     * Wait until the in-memory indexes are loaded (the filter endpoint
+     * answers 503 until then)
+     * 
+     * @return Highest patient ID, read from the last page of the unfiltered filter
+     */
+    private static long awaitReady(String baseUrl) throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        ObjectMapper mapper = new ObjectMapper();
+        while (true) {
+            HttpResponse<String> response = http.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/api/patients/filter?size=1")).build(),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                long total = mapper.readTree(response.body()).path("totalElements").asLong();
+                if (total == 0) {
+                    throw new IllegalStateException("No patients; fill the database with DatasetGenerator first");
+                }
+                response = http.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/api/patients/filter?size=1&page=" + (total - 1))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+                return mapper.readTree(response.body()).path("content").path(0).asLong();
+            }
+            if (response.statusCode() != 503) {
+                throw new IllegalStateException("Unexpected status " + response.statusCode() + " from " + baseUrl);
+            }
+            TimeUnit.SECONDS.sleep(1);
+        }
+    }
+    
+    /**
+     * Offer requests at a fixed mean rate for a number of seconds, then wait
+     * for the outstanding ones
+     */
+    private void run(int rate, int seconds, Random random) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        double meanGapNanos = 1e9 / rate;
+        long intended = start;
+        while (true) {
+            // Exponentially distributed gaps make the arrivals a Poisson process
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // When behind schedule, send immediately; latency still counts from the intended time
+            send(mix[random.nextInt(mix.length)], intended, random);
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(REQUEST_TIMEOUT_SECONDS + 5);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+    
+    private void send(Endpoint endpoint, long intended, Random random) {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        HttpRequest request;
+        try {
+            request = request(endpoint, random);
+        } catch (IOException e) {
+            inFlight.decrementAndGet();
+            errors.get(endpoint).incrementAndGet();
+            return;
+        }
+        http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+            latencies.get(endpoint).recordValue(Math.max(1, latencyMicros));
+            if (failure != null || response.statusCode() >= 400) {
+                errors.get(endpoint).incrementAndGet();
+            }
+            inFlight.decrementAndGet();
+        });
+    }
+    
+    private HttpRequest request(Endpoint endpoint, Random random) throws IOException {
+        String path;
+        switch (endpoint) {
+            case GET:
+                path = "/" + (1 + (long) (random.nextDouble() * maxId));
+                break;
+            case SEARCH:
+                path = "/search?query=" + encode(pick(QUERIES, random));
+                break;
+            case LIST:
+                // The first pages, as browsed in practice
+                path = "?page=" + random.nextInt((int) Math.max(1, Math.min(maxId / 20, 500))) + "&size=20";
+                break;
+            case AUTOCOMPLETE:
+                path = "/autocomplete?prefix=" + pick(PREFIXES, random);
+                break;
+            case PHONE:
+                path = "/phone/" + (1000 + random.nextInt(9000));
+                break;
+            case FILTER:
+                int minAge = random.nextInt(70);
+                path = "/filter?gender=" + (random.nextBoolean() ? "MALE" : "FEMALE") + "&minAge=" + minAge
+                    + "&maxAge=" + (minAge + 10 + random.nextInt(20)) + "&size=50";
+                break;
+            case STATISTICS:
+                path = "/statistics";
+                break;
+            case DEMOGRAPHICS:
+                path = "/statistics/demographics?insurance=" + encode(pick(PROVIDERS, random));
+                break;
+            case INSURANCE:
+                path = "/insurance/providers";
+                break;
+            default:
+                byte[] body;
+                synchronized (newPatients) {
+                    body = mapper.writeValueAsBytes(newPatients.next());
+                }
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/patients"))
+                    .timeout(Duration.ofSeconds(REQUEST_TIMEOUT_SECONDS))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/patients" + path))
+            .timeout(Duration.ofSeconds(REQUEST_TIMEOUT_SECONDS))
+            .build();
+    }
+    
+    private void reset() {
+        collect();
+        errors.values().forEach(count -> count.set(0));
+        dropped.set(0);
+    }
+    
+    private Map<Endpoint, Histogram> collect() {
+        Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            histograms.put(endpoint, latencies.get(endpoint).getIntervalHistogram());
+        }
+        return histograms;
+    }
+    
+    private void report(int rate, int seconds, Map<Endpoint, Histogram> histograms) throws IOException {
+        System.out.printf("%nOffered %d req/s for %d s (dropped %d at %d in flight)%n",
+            rate, seconds, dropped.getAndSet(0), maxInFlight);
+        System.out.printf("%-13s %8s %9s %9s %9s %9s %9s %9s %7s%n",
+            "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (Map.Entry<Endpoint, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long endpointErrors = errors.get(entry.getKey()).getAndSet(0);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            printRow(entry.getKey().name().toLowerCase(), histogram, seconds, endpointErrors);
+            write(histogram, rate + "-" + entry.getKey().name().toLowerCase());
+            total.add(histogram);
+            totalErrors += endpointErrors;
+        }
+        printRow("all", total, seconds, totalErrors);
+        write(total, rate + "-all");
+    }
+    
+    private static void printRow(String name, Histogram histogram, int seconds, long errors) {
+        System.out.printf("%-13s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d%n", name, histogram.getTotalCount(),
+            histogram.getTotalCount() / (double) seconds, millis(histogram, 50), millis(histogram, 90),
+            millis(histogram, 99), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0, errors);
+    }
+    
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+    
+    private static void write(Histogram histogram, String name) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(REPORT_DIRECTORY.resolve(name + ".hgrm")))) {
+            // Recorded in microseconds, written in milliseconds
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+    
+    private static int[] parseRates(String rates) {
+        String[] parts = rates.split(",");
+        int[] parsed = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            parsed[i] = Integer.parseInt(parts[i].trim());
+            if (parsed[i] <= 0) {
+                throw new IllegalArgumentException("Rates must be positive: " + rates);
+            }
+        }
+        return parsed;
+    }
+    
+    /**
+     * @return Endpoints repeated by weight, so a uniform pick follows the mix
+     */
+    private static Endpoint[] parseMix(String mix) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint:weight, got " + part);
+            }
+            Endpoint endpoint = Endpoint.valueOf(pair[0].trim().toUpperCase());
+            for (int i = Integer.parseInt(pair[1].trim()); i > 0; i--) {
+                endpoints.add(endpoint);
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("Empty endpoint mix: " + mix);
+        }
+        return endpoints.toArray(new Endpoint[0]);
+    }
+    
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+    
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
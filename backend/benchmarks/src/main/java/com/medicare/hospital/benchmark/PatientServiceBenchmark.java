@@ -0,0 +1,130 @@
+package com.medicare.hospital.benchmark;
+
+import com.medicare.hospital.HospitalManagementApplication;
+import com.medicare.hospital.controller.PatientController.PatientStatistics;
+import com.medicare.hospital.dto.PatientSummary;
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.repository.PatientTombstoneRepository;
+import com.medicare.hospital.service.PatientImportService;
+import com.medicare.hospital.service.PatientService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the PatientService hot paths
+ * 
+ * Each trial boots the application without a web server against a fresh
+ * in-memory H2 database and seeds it with datasetSize synthetic patients
+ * through the bulk import path. Patients created by the save benchmark are
+ * deleted after each iteration, so the table keeps its seeded size. Run
+ * with mvn compile exec:exec; results are written as JSON to
+ * target/jmh-result.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientServiceBenchmark {
+    
+    private static final String[] QUERIES = { "smith", "mar", "jo", "example.org", "patel.1", "zzz" };
+    private static final int SEED_CHUNK = 10_000;
+    
+    @Param({ "10000", "100000", "1000000" })
+    private int datasetSize;
+    
+    private ConfigurableApplicationContext context;
+    private PatientService patientService;
+    private SyntheticPatients generator;
+    private Random random;
+    private final List<Long> savedIds = new ArrayList<>();
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(HospitalManagementApplication.class)
+            .web(WebApplicationType.NONE)
+            // Passed as command line arguments so they override application.properties
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.medicare.hospital=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.orm.jdbc.bind=WARN");
+        patientService = context.getBean(PatientService.class);
+        
+        PatientImportService importService = context.getBean(PatientImportService.class);
+        generator = new SyntheticPatients(42L);
+        for (int seeded = 0; seeded < datasetSize; seeded += SEED_CHUNK) {
+            importService.importPatients(generator.next(Math.min(SEED_CHUNK, datasetSize - seeded)));
+        }
+        random = new Random(7L);
+    }
+    
+    @TearDown(Level.Iteration)
+    public void deleteSavedPatients() {
+        savedIds.forEach(patientService::deleteById);
+        savedIds.clear();
+        // Seeding creates no tombstones, so all of them come from these deletes
+        context.getBean(PatientTombstoneRepository.class).deleteAllInBatch();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public List<PatientSummary> searchPatients() {
+        return patientService.searchPatients(QUERIES[random.nextInt(QUERIES.length)], 20);
+    }
+    
+    @Benchmark
+    public PatientStatistics getPatientStatistics() {
+        return patientService.getPatientStatistics();
+    }
+    
+    @Benchmark
+    public List<Patient> getPatientsWithUpcomingBirthdays() {
+        return patientService.getPatientsWithUpcomingBirthdays();
+    }
+    
+    @Benchmark
+    public Page<PatientSummary> findAllPaged() {
+        int pages = Math.max(1, datasetSize / 20);
+        return patientService.findAllSummaries(PageRequest.of(random.nextInt(pages), 20));
+    }
+    
+    @Benchmark
+    public Patient save() {
+        Patient patient = patientService.save(generator.next().toEntity());
+        savedIds.add(patient.getId());
+        return patient;
+    }
+}
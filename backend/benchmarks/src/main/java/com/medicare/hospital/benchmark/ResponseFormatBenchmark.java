@@ -0,0 +1,172 @@
+package com.medicare.hospital.benchmark;
+
+import com.medicare.hospital.HospitalManagementApplication;
+import com.medicare.hospital.config.ResponseFormatConfig;
+import com.medicare.hospital.service.PatientImportService;
+import com.medicare.hospital.service.PatientService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JMH benchmark of response serialization per format
+ * 
+ * Writes one page of patients through the application's own message
+ * converters, exactly as a controller response would be written, into an
+ * in-memory buffer - optionally through gzip, as Tomcat compresses it. The
+ * encoded size of every combination is printed once per trial; the score
+ * is the time to encode one page. Run with
+ * mvn compile exec:exec -Djmh.args="ResponseFormatBenchmark".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseFormatBenchmark {
+    
+    /**
+     * Page contents: list and search responses (SUMMARIES) or full entities
+     * as returned by the cursor and birthday endpoints (PATIENTS)
+     */
+    public enum Payload {
+        SUMMARIES, PATIENTS
+    }
+    
+    /**
+     * Response encodings, as selected by the Accept header
+     */
+    public enum Format {
+        JSON, SMILE, CBOR
+    }
+    
+    private static final int DATASET_SIZE = 1000;
+    
+    @Param({ "SUMMARIES", "PATIENTS" })
+    private Payload payload;
+    
+    @Param({ "JSON", "SMILE", "CBOR" })
+    private Format format;
+    
+    @Param({ "false", "true" })
+    private boolean gzip;
+    
+    @Param({ "100" })
+    private int pageSize;
+    
+    private ConfigurableApplicationContext context;
+    private AbstractJackson2HttpMessageConverter converter;
+    private MediaType mediaType;
+    private Object page;
+    private final BufferMessage message = new BufferMessage();
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(HospitalManagementApplication.class)
+            .web(WebApplicationType.NONE)
+            // Passed as command line arguments so they override application.properties
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:formats;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.medicare.hospital=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.orm.jdbc.bind=WARN");
+        context.getBean(PatientImportService.class).importPatients(new SyntheticPatients(42L).next(DATASET_SIZE));
+        
+        PatientService patientService = context.getBean(PatientService.class);
+        PageRequest pageRequest = PageRequest.of(0, pageSize);
+        page = payload == Payload.SUMMARIES
+            ? patientService.findAllSummaries(pageRequest)
+            : patientService.findAll(pageRequest);
+        switch (format) {
+            case SMILE:
+                converter = context.getBean(MappingJackson2SmileHttpMessageConverter.class);
+                mediaType = MediaType.parseMediaType(ResponseFormatConfig.SMILE_VALUE);
+                break;
+            case CBOR:
+                converter = context.getBean(MappingJackson2CborHttpMessageConverter.class);
+                mediaType = MediaType.parseMediaType(ResponseFormatConfig.CBOR_VALUE);
+                break;
+            default:
+                converter = context.getBean(MappingJackson2HttpMessageConverter.class);
+                mediaType = MediaType.APPLICATION_JSON;
+        }
+        System.out.printf("%n%s page of %d, %s%s: %d bytes%n", payload, pageSize, format,
+            gzip ? " + gzip" : "", encode());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public int encodePage() throws IOException {
+        return encode();
+    }
+    
+    // Helper methods
+    private int encode() throws IOException {
+        message.buffer.reset();
+        if (gzip) {
+            try (GZIPOutputStream compressed = new GZIPOutputStream(message.buffer)) {
+                message.body = compressed;
+                converter.write(page, mediaType, message);
+            }
+        } else {
+            message.body = message.buffer;
+            converter.write(page, mediaType, message);
+        }
+        return message.buffer.size();
+    }
+    
+    // Response stand-in writing to a reusable buffer
+    private static final class BufferMessage implements HttpOutputMessage {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        private OutputStream body;
+        
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+        
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+    }
+}
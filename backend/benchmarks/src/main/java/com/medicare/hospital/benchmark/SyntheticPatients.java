@@ -0,0 +1,210 @@
+package com.medicare.hospital.benchmark;
+
+import com.medicare.hospital.dto.PatientDTO;
+import com.medicare.hospital.model.Patient;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic patients
+ * 
+ * The same seed always yields the same patients, so benchmark runs are
+ * comparable. Every generated patient passes PatientDTO validation and
+ * has a unique email.
+ * 
+ * Values follow rough real-world shapes rather than uniform noise: names
+ * are drawn with a skew towards the common ones, ages follow a population
+ * pyramid, about one in five patients is uninsured and insurers appear
+ * under several spellings, and medical histories mention zero to three
+ * conditions of varying prevalence. Emails use reserved example domains.
+ */
+public class SyntheticPatients {
+    
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+        "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+        "Priya", "Arjun", "Wei", "Mei", "Carlos", "Sofia", "Ahmed", "Fatima", "Olga", "Ivan",
+        "Daniel", "Nancy", "Matthew", "Lisa", "Anthony", "Betty", "Mark", "Sandra", "Donald", "Ashley",
+        "Hiroshi", "Yuki", "Kwame", "Amara", "Mateo", "Valentina", "Lars", "Ingrid", "Omar", "Leila"
+    };
+    
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+        "Sharma", "Patel", "Chen", "Wang", "Silva", "Rossi", "Khan", "Ali", "Petrov", "Novak",
+        "Lee", "Perez", "Thompson", "White", "Harris", "Clark", "Lewis", "Robinson", "Walker", "Young",
+        "Nguyen", "Kim", "Tanaka", "Mensah", "Okafor", "Schmidt", "Johansson", "Haddad", "O'Brien", "Kowalski"
+    };
+    
+    private static final String[] EMAIL_DOMAINS = { "example.org", "example.com", "example.net" };
+    
+    private static final String[] STREETS = {
+        "Main Street", "Oak Avenue", "Maple Drive", "Cedar Lane", "Park Road", "Elm Street", "Washington Avenue"
+    };
+    
+    private static final String[] CITIES = { "Springfield", "Riverside", "Fairview", "Franklin", "Greenville" };
+    
+    // Each insurer with the spellings registration staff actually type; the first is the most common
+    private static final String[][] INSURERS = {
+        { "Blue Cross Blue Shield", "BCBS", "Blue Cross & Blue Shield" },
+        { "UnitedHealthcare", "UHC", "United Healthcare" },
+        { "Aetna", "Aetna Inc.", "AETNA" },
+        { "Medicare" },
+        { "Medicaid" },
+        { "Cigna", "Cigna Insurance" },
+        { "Humana" },
+        { "Kaiser Permanente", "Kaiser" },
+        { "Anthem", "Anthem Inc" },
+        { "Molina Healthcare", "Molina" }
+    };
+    
+    // Most prevalent first
+    private static final String[] CONDITIONS = {
+        "hypertension", "hyperlipidemia", "obesity", "diabetes", "anxiety", "depression", "arthritis",
+        "asthma", "allergic rhinitis", "migraine", "hypothyroidism", "GERD", "COPD",
+        "coronary artery disease", "atrial fibrillation", "chronic kidney disease", "osteoporosis", "psoriasis"
+    };
+    
+    private static final String[] HISTORY_TEMPLATES = {
+        "Diagnosed with %s in %d.", "Follow-up for %s since %d.", "History of %s (%d).", "Treated for %s in %d."
+    };
+    
+    // Share of patients per age band (years, inclusive lower bound, exclusive upper bound)
+    private static final int[][] AGE_BANDS = {
+        { 0, 18, 22 }, { 18, 35, 22 }, { 35, 50, 19 }, { 50, 65, 19 }, { 65, 80, 13 }, { 80, 100, 5 }
+    };
+    private static final int AGE_BAND_TOTAL = 100;
+    
+    private final Random random;
+    private final LocalDate today = LocalDate.now();
+    private long sequence;
+    
+    public SyntheticPatients(long seed) {
+        this(seed, 0);
+    }
+    
+    /**
+     * @param seed Random seed
+     * @param firstSequence Sequence number of the first patient; emails stay
+     *                      unique across generators with disjoint sequences
+     */
+    public SyntheticPatients(long seed, long firstSequence) {
+        this.random = new Random(seed);
+        this.sequence = firstSequence;
+    }
+    
+    /**
+     * Generate the next batch of patients
+     * 
+     * @param count Number of patients
+     * @return Generated patients
+     */
+    public List<PatientDTO> next(int count) {
+        List<PatientDTO> patients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            patients.add(next());
+        }
+        return patients;
+    }
+    
+    /**
+     * Generate the next patient
+     * 
+     * @return Generated patient
+     */
+    public PatientDTO next() {
+        long n = sequence++;
+        String firstName = skewedPick(FIRST_NAMES);
+        String lastName = skewedPick(LAST_NAMES);
+        LocalDate dateOfBirth = dateOfBirth();
+        PatientDTO patient = new PatientDTO(
+            firstName,
+            lastName,
+            email(firstName, lastName, n),
+            random.nextInt(20) == 0 ? null : "+1" + (2000000000L + random.nextInt(1_000_000_000)),
+            dateOfBirth,
+            Patient.Gender.values()[random.nextInt(100) < 49 ? 0 : random.nextInt(100) < 96 ? 1 : 2]);
+        patient.setAddress((1 + random.nextInt(9999)) + " " + pick(STREETS) + ", " + pick(CITIES));
+        patient.setEmergencyContact(pick(FIRST_NAMES) + " " + lastName);
+        if (random.nextInt(10) < 8) {
+            String[] spellings = INSURERS[skewedIndex(INSURERS.length)];
+            patient.setInsurance(random.nextInt(4) == 0 ? pick(spellings) : spellings[0]);
+        }
+        patient.setMedicalHistory(medicalHistory(dateOfBirth));
+        return patient;
+    }
+    
+    /**
+     * Get the sequence number the next patient will have
+     * 
+     * @return Number of patients generated so far plus the first sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+    
+    // Helper methods
+    private LocalDate dateOfBirth() {
+        int roll = random.nextInt(AGE_BAND_TOTAL);
+        int[] band = AGE_BANDS[AGE_BANDS.length - 1];
+        for (int[] candidate : AGE_BANDS) {
+            if (roll < candidate[2]) {
+                band = candidate;
+                break;
+            }
+            roll -= candidate[2];
+        }
+        int spanDays = (band[1] - band[0]) * 365;
+        // At least one day old, so the date is always in the past
+        return today.minusYears(band[0]).minusDays(1 + random.nextInt(spanDays - 1));
+    }
+    
+    private String email(String firstName, String lastName, long n) {
+        String local;
+        switch (random.nextInt(3)) {
+            case 0:
+                local = firstName + "." + lastName + "." + n;
+                break;
+            case 1:
+                local = firstName.charAt(0) + lastName + n;
+                break;
+            default:
+                local = lastName + "." + firstName + "." + n;
+        }
+        return (local.replace("'", "") + "@" + pick(EMAIL_DOMAINS)).toLowerCase();
+    }
+    
+    private String medicalHistory(LocalDate dateOfBirth) {
+        // 0-3 conditions, more likely with age
+        int age = today.getYear() - dateOfBirth.getYear();
+        int conditions = Math.min(3, random.nextInt(2 + age / 25));
+        if (conditions == 0) {
+            return null;
+        }
+        StringBuilder history = new StringBuilder();
+        for (int i = 0; i < conditions; i++) {
+            if (i > 0) {
+                history.append(' ');
+            }
+            int year = dateOfBirth.getYear() + random.nextInt(Math.max(1, today.getYear() - dateOfBirth.getYear() + 1));
+            history.append(String.format(pick(HISTORY_TEMPLATES), CONDITIONS[skewedIndex(CONDITIONS.length)], year));
+        }
+        return history.toString();
+    }
+    
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+    
+    private String skewedPick(String[] values) {
+        return values[skewedIndex(values.length)];
+    }
+    
+    // Index biased towards the start of the array (the minimum of two uniform draws)
+    private int skewedIndex(int length) {
+        return Math.min(random.nextInt(length), random.nextInt(length));
+    }
+}
@@ -2,6 +2,8 @@ package com.medicare.hospital;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
 /**
@@ -18,6 +20,8 @@ import org.springframework.web.bind.annotation.CrossOrigin;
  * @version 1.0
  */
 @SpringBootApplication
+@EnableCaching
+@EnableScheduling
 @CrossOrigin(origins = "http://localhost:3000")
 public class HospitalManagementApplication {
     
@@ -0,0 +1,145 @@
+package com.medicare.hospital.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.RequestPath;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of API requests running at once
+ * 
+ * Most API requests need a database connection, so admitting more of them
+ * than the connection pool holds only moves the queue into Hikari. With one
+ * permit per pooled connection, excess requests wait here instead - which is
+ * cheap on a virtual thread - and get 503 Service Unavailable if no permit
+ * frees up within the timeout. Handlers marked @IndexOnly are exempt; the
+ * filter resolves the handler of each request through the MVC handler
+ * mapping to find out, so the exemption follows the controller rather than
+ * a list of paths kept here.
+ * 
+ * A request that continues asynchronously, such as a streaming export,
+ * keeps its permit until the async processing completes, since it holds
+ * a connection for the whole stream.
+ * 
+ * Meters: http.server.requests.permits.available and
+ * http.server.requests.permits.waiting.
+ */
+public class ConnectionPermitFilter extends OncePerRequestFilter {
+    
+    private final Semaphore permits;
+    private final long timeoutMillis;
+    private final HandlerMapping handlerMapping;
+    
+    public ConnectionPermitFilter(int permits, long timeoutMillis, HandlerMapping handlerMapping,
+                                  MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(permits, true);
+        this.timeoutMillis = timeoutMillis;
+        this.handlerMapping = handlerMapping;
+        Gauge.builder("http.server.requests.permits.available", this.permits, Semaphore::availablePermits)
+            .description("Request permits not currently in use")
+            .register(meterRegistry);
+        Gauge.builder("http.server.requests.permits.waiting", this.permits, Semaphore::getQueueLength)
+            .description("Requests waiting for a permit")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return handlerOf(request) instanceof HandlerMethod handler && handler.hasMethodAnnotation(IndexOnly.class);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                request.getAsyncContext().addListener(new PermitReleasingListener());
+            } else {
+                permits.release();
+            }
+        }
+    }
+    
+    // Helper methods
+    private Object handlerOf(HttpServletRequest request) {
+        // The DispatcherServlet parses the request path only after filters have run
+        RequestPath previous = ServletRequestPathUtils.hasParsedRequestPath(request)
+            ? ServletRequestPathUtils.getParsedRequestPath(request) : null;
+        ServletRequestPathUtils.parseAndCache(request);
+        try {
+            HandlerExecutionChain chain = handlerMapping.getHandler(request);
+            return chain != null ? chain.getHandler() : null;
+        } catch (Exception e) {
+            // Unresolvable requests fail in the DispatcherServlet; they still need a permit
+            return null;
+        } finally {
+            ServletRequestPathUtils.setParsedRequestPath(previous, request);
+        }
+    }
+    
+    // Releases the permit once when async processing ends, however it ends
+    private class PermitReleasingListener implements AsyncListener {
+        private final AtomicBoolean released = new AtomicBoolean();
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Listeners are dropped when async processing is restarted
+            event.getAsyncContext().addListener(this);
+        }
+        
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.medicare.hospital.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method answered from the in-memory indexes alone
+ * 
+ * Such handlers never touch a database connection, so the
+ * ConnectionPermitFilter lets their requests through without a permit.
+ * Only mark handlers whose fallback path, if any, does not reach the
+ * database either, and whose service call runs outside a transaction -
+ * beginning one checks out a connection.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface IndexOnly {
+}
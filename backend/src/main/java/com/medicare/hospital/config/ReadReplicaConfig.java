@@ -0,0 +1,106 @@
+package com.medicare.hospital.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opt-in routing of read-only transactions to database replicas
+ * 
+ * Enabled with app.datasource.replicas.enabled=true. spring.datasource stays
+ * the primary and takes every write; each URL in app.datasource.replicas.urls
+ * gets its own pool with the primary's Hikari settings, except that it starts
+ * without waiting for a connection and gives up on one after
+ * app.datasource.replicas.connection-timeout-ms. Replicas whose lag
+ * exceeds app.datasource.replicas.max-lag-ms, or that fail their health
+ * check, are skipped until they recover, and reads fall back to the primary
+ * when none is left.
+ */
+@Configuration
+@ConditionalOnProperty(value = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+    
+    @Value("${app.datasource.replicas.urls}")
+    private List<String> replicaUrls;
+    
+    @Value("${app.datasource.replicas.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+    
+    @Value("${app.datasource.replicas.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+    
+    @Value("${app.datasource.replicas.selection:ROUND_ROBIN}")
+    private ReplicaRoutingDataSource.Selection selection;
+    
+    @Value("${app.datasource.replicas.connection-timeout-ms:1000}")
+    private long replicaConnectionTimeoutMillis;
+    
+    @Value("${app.datasource.replicas.max-lag-ms:5000}")
+    private long maxLagMillis;
+    
+    @Value("${app.datasource.replicas.lag-query:SHOW REPLICA STATUS}")
+    private String lagQuery;
+    
+    @Value("${app.datasource.replicas.lag-column:Seconds_Behind_Source}")
+    private String lagColumn;
+    
+    /**
+     * Pool for the primary database, configured from spring.datasource
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    /**
+     * Router between the primary and replica pools; checks replica lag on
+     * app.datasource.replicas.lag-check-interval-ms
+     */
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource) {
+        List<HikariDataSource> replicaPools = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setPoolName("replica-" + (i + 1));
+            config.setJdbcUrl(replicaUrls.get(i).trim());
+            config.setUsername(replicaUsername);
+            config.setPassword(replicaPassword);
+            config.setReadOnly(true);
+            // A dead replica must neither fail startup nor stall reads and the scheduled
+            // health check for the primary's full connection timeout
+            config.setInitializationFailTimeout(-1);
+            config.setConnectionTimeout(replicaConnectionTimeoutMillis);
+            replicaPools.add(new HikariDataSource(config));
+        }
+        ReplicaRoutingDataSource router = new ReplicaRoutingDataSource(primaryDataSource, replicaPools, selection,
+            maxLagMillis, lagQuery, lagColumn);
+        // Decide replica eligibility before the first request rather than after the first interval
+        router.checkReplicas();
+        return router;
+    }
+    
+    /**
+     * The application DataSource: connections are taken on first use, when
+     * the transaction's read-only flag is known
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
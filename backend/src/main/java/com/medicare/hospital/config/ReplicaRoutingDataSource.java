@@ -0,0 +1,237 @@
+package com.medicare.hospital.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * DataSource that sends read-only transactions to replicas
+ * 
+ * A connection requested inside a transaction marked readOnly comes from one
+ * of the replica pools; every other connection comes from the primary. A
+ * replica is only used while its last health check succeeded and reported a
+ * replication lag within the staleness bound. If no replica qualifies, or
+ * the chosen one fails to hand out a connection, the primary serves the
+ * read instead.
+ * 
+ * Reads that must not see replication lag - results that get cached, tagged
+ * or used as a resume position - are wrapped in readFromPrimary() and keep
+ * their read-only transaction on the primary.
+ * 
+ * The transaction's read-only flag is only known once the transaction has
+ * started, so this must sit behind a LazyConnectionDataSourceProxy.
+ * 
+ * Meters: db.replica.lag (per replica, -1 while unavailable),
+ * db.replica.available and db.replica.fallbacks.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, AutoCloseable {
+    
+    /**
+     * How a replica is chosen for each read-only transaction
+     */
+    public enum Selection {
+        /** Rotate through the available replicas */
+        ROUND_ROBIN,
+        /** Pick the available replica with the fewest connections in use */
+        LEAST_CONNECTIONS
+    }
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    
+    private static final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+    
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Selection selection;
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong fallbacks = new AtomicLong();
+    
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools, Selection selection,
+                                    long maxLagMillis, String lagQuery, String lagColumn) {
+        this.primary = primary;
+        this.selection = selection;
+        this.maxLagMillis = maxLagMillis;
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        replicaPools.forEach(pool -> replicas.add(new Replica(pool)));
+    }
+    
+    /**
+     * Run a read whose connections must come from the primary
+     * 
+     * Applies to connections first used inside the read; a transaction that
+     * already holds a replica connection keeps it. Has no effect when
+     * replica routing is disabled.
+     * 
+     * @param read Read to run, typically a call into a read-only transaction
+     * @return Result of the read
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean previous = primaryRequired.get();
+        primaryRequired.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                primaryRequired.remove();
+            }
+        }
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicas.isEmpty()
+                || primaryRequired.get() != null) {
+            return primary.getConnection();
+        }
+        // Try each available replica at most once, in selection order
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = choose();
+            if (replica == null) {
+                break;
+            }
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLException e) {
+                logger.warn("Replica {} unavailable, excluding it until the next health check: {}",
+                    replica.pool.getPoolName(), e.getMessage());
+                replica.markUnavailable();
+            }
+        }
+        fallbacks.incrementAndGet();
+        return primary.getConnection();
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Connections use the configured credentials");
+    }
+    
+    /**
+     * Measure the replication lag of every replica and admit or exclude it
+     * against the staleness bound
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.lag-check-interval-ms:1000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            long lag;
+            try {
+                lag = measureLag(replica.pool);
+            } catch (SQLException e) {
+                lag = -1;
+                if (replica.available) {
+                    logger.warn("Health check of replica {} failed: {}", replica.pool.getPoolName(), e.getMessage());
+                }
+            }
+            boolean available = lag >= 0 && lag <= maxLagMillis;
+            if (available != replica.available) {
+                logger.info("Replica {} is now {} (lag {} ms, bound {} ms)", replica.pool.getPoolName(),
+                    available ? "in use" : "excluded", lag, maxLagMillis);
+            }
+            replica.lagMillis = lag;
+            replica.available = available;
+        }
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("db.replica.lag", replica, r -> r.lagMillis)
+                .description("Replication lag of the replica at its last health check")
+                .baseUnit("milliseconds")
+                .tag("replica", replica.pool.getPoolName())
+                .register(registry);
+        }
+        Gauge.builder("db.replica.available", replicas, list -> list.stream().filter(r -> r.available).count())
+            .description("Replicas currently eligible for read-only transactions")
+            .register(registry);
+        FunctionCounter.builder("db.replica.fallbacks", fallbacks, AtomicLong::get)
+            .description("Read-only connections served by the primary because no replica was usable")
+            .register(registry);
+    }
+    
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+    
+    // Helper methods
+    private Replica choose() {
+        List<Replica> candidates = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.available) {
+                candidates.add(replica);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (selection == Selection.ROUND_ROBIN) {
+            return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+        }
+        Replica least = candidates.get(0);
+        for (Replica candidate : candidates) {
+            if (candidate.activeConnections() < least.activeConnections()) {
+                least = candidate;
+            }
+        }
+        return least;
+    }
+    
+    /**
+     * @return Lag in milliseconds, or -1 if the replica reports none (replication stopped)
+     */
+    private long measureLag(HikariDataSource pool) throws SQLException {
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(lagQuery)) {
+            if (!result.next()) {
+                return -1;
+            }
+            long seconds = StringUtils.hasText(lagColumn) ? result.getLong(lagColumn) : result.getLong(1);
+            return result.wasNull() ? -1 : seconds * 1000;
+        }
+    }
+    
+    private static final class Replica {
+        private final HikariDataSource pool;
+        private volatile boolean available;
+        private volatile long lagMillis = -1;
+        
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+        
+        private void markUnavailable() {
+            available = false;
+            lagMillis = -1;
+        }
+        
+        private int activeConnections() {
+            HikariPoolMXBean pool = this.pool.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+    }
+}
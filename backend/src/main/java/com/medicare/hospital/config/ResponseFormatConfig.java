@@ -0,0 +1,45 @@
+package com.medicare.hospital.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Binary alternatives to JSON for API responses
+ * 
+ * Clients sending Accept: application/x-jackson-smile or application/cbor
+ * get the same object model encoded as Smile or CBOR, which is smaller and
+ * cheaper to write than JSON. Both mappers are built from the application's
+ * Jackson settings, so field names, date formats and views match the JSON
+ * contract. JSON stays the default for any other Accept header.
+ */
+@Configuration
+public class ResponseFormatConfig {
+    
+    /** Media type of Smile-encoded responses */
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    /** Media type of CBOR-encoded responses */
+    public static final String CBOR_VALUE = "application/cbor";
+    
+    /**
+     * Smile converter; replaces the default one that would otherwise use
+     * plain Jackson defaults
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+    
+    /**
+     * CBOR converter; replaces the default one that would otherwise use
+     * plain Jackson defaults
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
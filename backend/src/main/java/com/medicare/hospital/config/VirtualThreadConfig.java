@@ -0,0 +1,48 @@
+package com.medicare.hospital.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Request admission for virtual-thread request execution
+ * 
+ * Enabled with spring.threads.virtual.enabled=true.
+ * Spring Boot then runs Tomcat request processing and async MVC work
+ * (streaming exports) on virtual threads; this configuration adds a
+ * ConnectionPermitFilter sized to the Hikari pool, so requests queue on
+ * the limiter rather than inside the connection pool.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+    
+    @Value("${app.execution.permit-timeout-ms:30000}")
+    private long permitTimeoutMillis;
+    
+    /**
+     * Admit at most one API request per pooled connection
+     * 
+     * The handler mapping is injected lazily: filters are created while the
+     * embedded server starts, before the MVC infrastructure is.
+     */
+    @Bean
+    public FilterRegistrationBean<ConnectionPermitFilter> connectionPermitFilter(
+            @Lazy @Qualifier("requestMappingHandlerMapping") HandlerMapping handlerMapping,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConnectionPermitFilter> registration = new FilterRegistrationBean<>(
+            new ConnectionPermitFilter(connectionPoolSize, permitTimeoutMillis, handlerMapping, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -1,18 +1,50 @@
 package com.medicare.hospital.controller;
 
+import com.medicare.hospital.index.ConditionIndex;
+import com.medicare.hospital.index.PatientCriteria;
 import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.service.DuplicateDetectionService;
+import com.medicare.hospital.service.PatientChangeFeedService;
+import com.medicare.hospital.service.PatientCursor;
+import com.medicare.hospital.service.PatientExportService;
+import com.medicare.hospital.service.PatientImportService;
 import com.medicare.hospital.service.PatientService;
+import com.medicare.hospital.config.IndexOnly;
+import com.medicare.hospital.config.ResponseFormatConfig;
+import com.medicare.hospital.config.ReplicaRoutingDataSource;
+import com.medicare.hospital.dto.AgeGroupCount;
+import com.medicare.hospital.dto.CursorPage;
+import com.medicare.hospital.dto.DeduplicationJob;
+import com.medicare.hospital.dto.DemographicsBreakdown;
+import com.medicare.hospital.dto.DuplicateCandidate;
+import com.medicare.hospital.dto.InsuranceMix;
+import com.medicare.hospital.dto.NameSuggestion;
+import com.medicare.hospital.dto.PatientChange;
+import com.medicare.hospital.dto.ImportResult;
 import com.medicare.hospital.dto.PatientDTO;
+import com.medicare.hospital.dto.PatientSummary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
-import javax.validation.Valid;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * REST Controller for Patient Management
@@ -31,36 +63,167 @@ import java.util.Optional;
 @CrossOrigin(origins = "http://localhost:3000")
 public class PatientController {
     
+    private static final MediaType SMILE = MediaType.parseMediaType(ResponseFormatConfig.SMILE_VALUE);
+    private static final MediaType CBOR = MediaType.parseMediaType(ResponseFormatConfig.CBOR_VALUE);
+    // Encodings of a single patient, in order of preference
+    private static final List<MediaType> REPRESENTATIONS = List.of(MediaType.APPLICATION_JSON, SMILE, CBOR);
+    
     @Autowired
     private PatientService patientService;
     
+    @Autowired
+    private PatientImportService patientImportService;
+    
+    @Autowired
+    private PatientExportService patientExportService;
+    
+    @Autowired
+    private PatientChangeFeedService changeFeedService;
+    
+    @Autowired
+    private DuplicateDetectionService duplicateDetectionService;
+    
+    @Value("${app.export.timeout-ms:3600000}")
+    private long exportTimeoutMillis;
+    
     /**
      * Get all patients with pagination support
      * 
+     * Returns summaries without address and medical history;
+     * use GET /{id} for the full record.
+     * 
      * @param pageable Pagination information
-     * @return Page of patients
+     * @param ifNoneMatch Registry ETag from a previous response
+     * @return Page of patient summaries, 304 if the registry has not changed
      */
     @GetMapping
-    public ResponseEntity<Page<Patient>> getAllPatients(Pageable pageable) {
+    public ResponseEntity<Page<PatientSummary>> getAllPatients(
+            Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Page<Patient> patients = patientService.findAll(pageable);
+            return conditionalOnRegistry(ifNoneMatch, () -> patientService.findAllSummaries(pageable));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Get patients with cursor-based (keyset) pagination
+     * 
+     * No total count is computed, and later slices are as fast as the first.
+     * Pass the returned nextCursor to fetch the following slice.
+     * 
+     * @param cursor Cursor from the previous slice, omitted for the first slice
+     * @param size Slice size
+     * @param sort Sort key for a new listing (the cursor carries its own)
+     * @return Slice of patient summaries, 400 if the cursor is invalid
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<PatientSummary>> getPatientsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "ID") PatientCursor.SortKey sort) {
+        try {
+            CursorPage<PatientSummary> patients = patientService.findSlice(sort, cursor, size);
             return ResponseEntity.ok(patients);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
+    /**
+     * Get the patients created, updated or deleted since a cursor
+     * 
+     * Poll with the nextCursor of the previous response; omit the cursor for
+     * an initial sync. Changes are returned oldest first.
+     * 
+     * @param since Cursor from the previous response
+     * @param size Maximum number of changes
+     * @return Changes with the cursor to resume from, 400 if the cursor is
+     *         invalid, 410 if it is too old and the client must resync
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<CursorPage<PatientChange>> getPatientChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            CursorPage<PatientChange> changes = changeFeedService.findChanges(since, size);
+            return ResponseEntity.ok(changes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (PatientChangeFeedService.CursorExpiredException e) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Export the whole patient registry as a stream
+     * 
+     * NDJSON writes one patient JSON object per line; CSV writes a header
+     * line followed by one row per patient; SMILE writes one Smile-encoded
+     * patient after another. The response is streamed, so the registry is
+     * never held in memory. The export runs asynchronously with its own
+     * timeout (app.export.timeout-ms) instead of the default async timeout.
+     * 
+     * @param format Export format (NDJSON, CSV or SMILE)
+     * @param response Response the export is written to
+     * @return Task writing the export
+     */
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportPatients(
+            @RequestParam(defaultValue = "NDJSON") PatientExportService.Format format,
+            HttpServletResponse response) {
+        MediaType contentType;
+        switch (format) {
+            case CSV:
+                contentType = MediaType.parseMediaType("text/csv");
+                break;
+            case SMILE:
+                contentType = MediaType.parseMediaType(ResponseFormatConfig.SMILE_VALUE);
+                break;
+            default:
+                contentType = MediaType.parseMediaType("application/x-ndjson");
+        }
+        response.setContentType(contentType.toString());
+        return new WebAsyncTask<>(exportTimeoutMillis, () -> {
+            patientExportService.export(format, response.getOutputStream());
+            return null;
+        });
+    }
+    
     /**
      * Get patient by ID
      * 
+     * The ETag is strong, so it is specific to the representation chosen
+     * from the Accept header (JSON, Smile or CBOR).
+     * 
      * @param id Patient ID
-     * @return Patient if found, 404 if not found
+     * @param accept Accept header of the request
+     * @param ifNoneMatch ETag of the copy the client already has
+     * @return Patient if found (with ETag and Last-Modified), 304 if the
+     *         client's copy is current, 404 if not found
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Patient> getPatientById(@PathVariable Long id) {
+    public ResponseEntity<Patient> getPatientById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            MediaType representation = representationFor(accept);
+            if (ifNoneMatch != null) {
+                // Answer from the version column alone when the client is up to date
+                Optional<String> currentTag = patientService.findVersion(id).map(v -> entityTag(v, representation));
+                if (currentTag.isPresent() && etagMatches(ifNoneMatch, currentTag.get(), false)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentTag.get())
+                        .varyBy(HttpHeaders.ACCEPT).build();
+                }
+            }
             Optional<Patient> patient = patientService.findById(id);
-            return patient.map(ResponseEntity::ok)
+            return patient.map(p -> withValidators(ResponseEntity.ok(), p, representation).body(p))
                          .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -74,36 +237,88 @@ public class PatientController {
      * @return Created patient with 201 status
      */
     @PostMapping
-    public ResponseEntity<Patient> createPatient(@Valid @RequestBody PatientDTO patientDTO) {
+    public ResponseEntity<Patient> createPatient(@Valid @RequestBody PatientDTO patientDTO,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
             Patient patient = convertToEntity(patientDTO);
             Patient savedPatient = patientService.save(patient);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedPatient);
+            return withValidators(ResponseEntity.status(HttpStatus.CREATED), savedPatient, representationFor(accept))
+                .body(savedPatient);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
     
+    /**
+     * Bulk import patients from a JSON array
+     * 
+     * Rows are validated individually; invalid rows are reported and
+     * the valid ones are still imported.
+     * 
+     * @param patients Patients to import
+     * @return Import result with per-row errors
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportResult> importPatients(@RequestBody List<PatientDTO> patients) {
+        try {
+            ImportResult result = patientImportService.importPatients(patients);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Bulk import patients from CSV with a header line of PatientDTO field names
+     * 
+     * @param csv CSV request body
+     * @return Import result with per-row errors, 400 if the header is invalid
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportResult> importPatientsCsv(Reader csv) {
+        try {
+            ImportResult result = patientImportService.importCsv(csv);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     /**
      * Update existing patient
      * 
      * @param id Patient ID
      * @param patientDTO Updated patient data
-     * @return Updated patient or 404 if not found
+     * @param ifMatch ETag the client last read, in any representation; the
+     *                update is rejected if the patient has changed since
+     * @param accept Accept header of the request
+     * @return Updated patient or 404 if not found, 412 if the patient was
+     *         modified concurrently
      */
     @PutMapping("/{id}")
     public ResponseEntity<Patient> updatePatient(@PathVariable Long id, 
-                                               @Valid @RequestBody PatientDTO patientDTO) {
+                                               @Valid @RequestBody PatientDTO patientDTO,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            Optional<Patient> existingPatient = patientService.findById(id);
+            MediaType representation = representationFor(accept);
+            Optional<Patient> existingPatient = patientService.findByIdForUpdate(id);
             if (existingPatient.isPresent()) {
                 Patient patient = existingPatient.get();
+                if (ifMatch != null && !matchesAnyRepresentation(ifMatch, patient.getVersion())) {
+                    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                        .eTag(entityTag(patient.getVersion(), representation)).varyBy(HttpHeaders.ACCEPT).build();
+                }
                 updatePatientFromDTO(patient, patientDTO);
                 Patient updatedPatient = patientService.save(patient);
-                return ResponseEntity.ok(updatedPatient);
+                return withValidators(ResponseEntity.ok(), updatedPatient, representation).body(updatedPatient);
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
@@ -133,13 +348,55 @@ public class PatientController {
      * Search patients by name or email
      * 
      * @param query Search query
-     * @return List of matching patients
+     * @param limit Maximum number of results
+     * @param ifNoneMatch Registry ETag from a previous response
+     * @return Summaries of matching patients, best match first; 304 if the
+     *         registry has not changed
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Patient>> searchPatients(@RequestParam String query) {
+    public ResponseEntity<List<PatientSummary>> searchPatients(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<Patient> patients = patientService.searchPatients(query);
+            return conditionalOnRegistry(ifNoneMatch, () -> patientService.searchPatients(query, limit));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Typeahead suggestions by name prefix
+     * 
+     * @param prefix Start of a first, last or full name
+     * @param limit Maximum number of suggestions
+     * @return Patient IDs and full names
+     */
+    @GetMapping("/autocomplete")
+    @IndexOnly
+    public ResponseEntity<List<NameSuggestion>> autocomplete(@RequestParam String prefix,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<NameSuggestion> suggestions = patientService.suggestNames(prefix, limit);
+            return ResponseEntity.ok(suggestions);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Find patients by the last digits of their phone number
+     * 
+     * @param digits Last 4 or more digits (formatting is ignored)
+     * @return Summaries of matching patients, 400 if fewer than 4 digits are given
+     */
+    @GetMapping("/phone/{digits}")
+    public ResponseEntity<List<PatientSummary>> getPatientsByPhoneSuffix(@PathVariable String digits) {
+        try {
+            List<PatientSummary> patients = patientService.findByPhoneSuffix(digits);
             return ResponseEntity.ok(patients);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -149,12 +406,102 @@ public class PatientController {
      * Get patients by gender
      * 
      * @param gender Patient gender
-     * @return List of patients with specified gender
+     * @param ifNoneMatch Registry ETag from a previous response
+     * @return Summaries of patients with specified gender, 304 if the
+     *         registry has not changed
      */
     @GetMapping("/gender/{gender}")
-    public ResponseEntity<List<Patient>> getPatientsByGender(@PathVariable Patient.Gender gender) {
+    public ResponseEntity<List<PatientSummary>> getPatientsByGender(
+            @PathVariable Patient.Gender gender,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            return conditionalOnRegistry(ifNoneMatch, () -> patientService.findByGender(gender));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Get the number of patients of each insurance provider
+     * 
+     * @return Provider counts, most patients first; 503 while the
+     *         insurance dictionary is still loading
+     */
+    @GetMapping("/insurance/providers")
+    @IndexOnly
+    public ResponseEntity<InsuranceMix> getInsuranceMix() {
+        try {
+            InsuranceMix mix = patientService.getInsuranceMix();
+            return ResponseEntity.ok(mix);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Get patients by insurance provider
+     * 
+     * @param provider Provider name in any known spelling or alias
+     * @return Summaries of the provider's patients ordered by ID
+     */
+    @GetMapping("/insurance/{provider}")
+    public ResponseEntity<List<PatientSummary>> getPatientsByInsurance(@PathVariable String provider) {
+        try {
+            List<PatientSummary> patients = patientService.findByInsurance(provider);
+            return ResponseEntity.ok(patients);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Get patients without insurance information
+     * 
+     * @return Summaries of uninsured patients ordered by ID
+     */
+    @GetMapping("/without-insurance")
+    public ResponseEntity<List<PatientSummary>> getPatientsWithoutInsurance() {
+        try {
+            List<PatientSummary> patients = patientService.findPatientsWithoutInsurance();
+            return ResponseEntity.ok(patients);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Find patients by medical conditions
+     * 
+     * @param terms Condition phrases (e.g. diabetes, "coronary artery", asthm*)
+     * @param mode ALL to require every condition, ANY for at least one
+     * @param pageable Pagination information
+     * @return Page of matching patient summaries ordered by ID
+     */
+    @GetMapping("/conditions")
+    public ResponseEntity<Page<PatientSummary>> getPatientsWithConditions(
+            @RequestParam List<String> terms,
+            @RequestParam(defaultValue = "ALL") ConditionIndex.Mode mode,
+            Pageable pageable) {
         try {
-            List<Patient> patients = patientService.findByGender(gender);
+            Page<PatientSummary> patients = patientService.findPatientsWithConditions(terms, mode, pageable);
+            return ResponseEntity.ok(patients);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Get patients with upcoming birthdays
+     * 
+     * @param days Number of days to look ahead
+     * @return List of patients ordered by upcoming birthday
+     */
+    @GetMapping("/birthdays/upcoming")
+    public ResponseEntity<List<Patient>> getUpcomingBirthdays(@RequestParam(defaultValue = "30") int days) {
+        try {
+            List<Patient> patients = patientService.getPatientsWithUpcomingBirthdays(days);
             return ResponseEntity.ok(patients);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -176,20 +523,283 @@ public class PatientController {
         }
     }
     
+    /**
+     * Get patient counts per age group
+     * 
+     * @param boundaries Ascending minimum ages of each group after the first;
+     *                   defaults to 18,31,51,71 (under 18, 18-30, 31-50, 51-70, over 70)
+     * @return Patient count per age group, 400 if the boundaries are invalid
+     */
+    @GetMapping("/statistics/age-groups")
+    public ResponseEntity<List<AgeGroupCount>> getPatientCountByAgeGroup(
+            @RequestParam(required = false) int[] boundaries) {
+        try {
+            List<AgeGroupCount> groups = patientService.getPatientCountByAgeGroup(
+                boundaries != null ? boundaries : PatientService.DEFAULT_AGE_BOUNDARIES);
+            return ResponseEntity.ok(groups);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Find the IDs of patients matching several criteria at once
+     * 
+     * All filters are optional and combined with AND.
+     * 
+     * @param gender Only patients of this gender
+     * @param minAge Only patients at least this old
+     * @param maxAge Only patients at most this old
+     * @param insurance Only patients with this insurance provider
+     * @param withoutInsurance Only patients without insurance
+     * @param registeredSince Only patients registered on or after this date
+     * @param pageable Page of IDs to return
+     * @return Page of patient IDs in ascending order with the total count,
+     *         400 if insurance and withoutInsurance are combined, 503 while
+     *         the indexes are still loading
+     */
+    @GetMapping("/filter")
+    @IndexOnly
+    public ResponseEntity<Page<Long>> filterPatients(
+            @RequestParam(required = false) Patient.Gender gender,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestParam(required = false) String insurance,
+            @RequestParam(defaultValue = "false") boolean withoutInsurance,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate registeredSince,
+            Pageable pageable) {
+        try {
+            PatientCriteria criteria = new PatientCriteria()
+                .gender(gender)
+                .minAge(minAge)
+                .maxAge(maxAge)
+                .insurance(insurance)
+                .withoutInsurance(withoutInsurance)
+                .registeredSince(registeredSince);
+            Page<Long> ids = patientService.filterPatientIds(criteria, pageable);
+            return ResponseEntity.ok(ids);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Break down patients by gender, age group and insurance provider
+     * 
+     * All filters are optional and combined with AND.
+     * 
+     * @param gender Only patients of this gender
+     * @param minAge Only patients at least this old
+     * @param maxAge Only patients at most this old
+     * @param insurance Only patients with this insurance provider
+     * @param withoutInsurance Only patients without insurance
+     * @param registeredSince Only patients registered on or after this date
+     * @param boundaries Age group boundaries, as for /statistics/age-groups
+     * @return Demographic counts, 400 if the boundaries are invalid or
+     *         insurance and withoutInsurance are combined, 503 while the
+     *         snapshot is still loading
+     */
+    @GetMapping("/statistics/demographics")
+    @IndexOnly
+    public ResponseEntity<DemographicsBreakdown> getDemographics(
+            @RequestParam(required = false) Patient.Gender gender,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestParam(required = false) String insurance,
+            @RequestParam(defaultValue = "false") boolean withoutInsurance,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate registeredSince,
+            @RequestParam(required = false) int[] boundaries) {
+        try {
+            PatientCriteria criteria = new PatientCriteria()
+                .gender(gender)
+                .minAge(minAge)
+                .maxAge(maxAge)
+                .insurance(insurance)
+                .withoutInsurance(withoutInsurance)
+                .registeredSince(registeredSince);
+            DemographicsBreakdown breakdown = patientService.getDemographics(
+                criteria, boundaries != null ? boundaries : PatientService.DEFAULT_AGE_BOUNDARIES);
+            return ResponseEntity.ok(breakdown);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Start a duplicate detection job over all patients
+     * 
+     * The job runs in the background; poll GET /duplicates/job for progress.
+     * 
+     * @return Status of the started job (202), 409 if a job is already running
+     */
+    @PostMapping("/duplicates/job")
+    public ResponseEntity<DeduplicationJob> startDuplicateDetection() {
+        try {
+            DeduplicationJob job = duplicateDetectionService.start();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Get the status and progress of the current or last duplicate detection job
+     * 
+     * @return Job status, 404 if no job has been started
+     */
+    @GetMapping("/duplicates/job")
+    public ResponseEntity<DeduplicationJob> getDuplicateDetectionStatus() {
+        DeduplicationJob job = duplicateDetectionService.getStatus();
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+    
+    /**
+     * Cancel the running duplicate detection job
+     * 
+     * @return Status of the job being cancelled (202), 409 if no job is running
+     */
+    @DeleteMapping("/duplicates/job")
+    public ResponseEntity<DeduplicationJob> cancelDuplicateDetection() {
+        try {
+            DeduplicationJob job = duplicateDetectionService.cancel();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    /**
+     * Get the merge candidates found by the last completed duplicate detection job
+     * 
+     * @param minScore Only candidates scoring at least this (the job keeps
+     *                 candidates from app.dedup.min-score up)
+     * @param pageable Page of candidates to return
+     * @return Candidate pairs with both patients' summaries, highest score
+     *         first; 404 if no job has completed yet
+     */
+    @GetMapping("/duplicates")
+    public ResponseEntity<Page<DuplicateCandidate>> getDuplicateCandidates(
+            @RequestParam(defaultValue = "0") double minScore,
+            Pageable pageable) {
+        try {
+            Page<DuplicateCandidate> candidates = duplicateDetectionService.findCandidates(minScore, pageable);
+            return ResponseEntity.ok(candidates);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     // Helper methods
+    private <T> ResponseEntity<T> conditionalOnRegistry(String ifNoneMatch, Supplier<T> body) {
+        // Read the tag before the data, so the data is never older than the tag; the tag follows
+        // commits on the primary, so a tagged body is read there rather than from a lagging replica.
+        // The tag is weak: it stands for every encoding (JSON, Smile, CBOR, gzip) of the same content
+        Optional<String> tag = patientService.getRegistryVersionTag().map(v -> "W/\"r" + v + "\"");
+        if (!tag.isPresent()) {
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(body.get());
+        }
+        if (ifNoneMatch != null && etagMatches(ifNoneMatch, tag.get(), false)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag.get()).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(tag.get()).varyBy(HttpHeaders.ACCEPT)
+            .body(ReplicaRoutingDataSource.readFromPrimary(body));
+    }
+    
+    // Fixes the response encoding, so the strong ETag always describes the bytes sent
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, Patient patient,
+                                                             MediaType representation) {
+        builder.contentType(representation)
+            .eTag(entityTag(patient.getVersion(), representation))
+            .varyBy(HttpHeaders.ACCEPT);
+        if (patient.getUpdatedAt() != null) {
+            builder.lastModified(patient.getUpdatedAt().atZone(ZoneId.systemDefault()));
+        }
+        return builder;
+    }
+    
+    private static String entityTag(Long version, MediaType representation) {
+        if (representation.equals(SMILE)) {
+            return "\"" + version + "-smile\"";
+        }
+        if (representation.equals(CBOR)) {
+            return "\"" + version + "-cbor\"";
+        }
+        return "\"" + version + "\"";
+    }
+    
+    private static boolean matchesAnyRepresentation(String ifMatch, Long version) {
+        for (MediaType representation : REPRESENTATIONS) {
+            if (etagMatches(ifMatch, entityTag(version, representation), true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Pick the patient representation for an Accept header the way content
+     * negotiation would: the most preferred acceptable type wins, JSON on
+     * ties, and JSON when nothing matches
+     */
+    private static MediaType representationFor(String accept) {
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(acceptable);
+            for (MediaType type : acceptable) {
+                for (MediaType representation : REPRESENTATIONS) {
+                    if (type.getQualityValue() > 0 && type.isCompatibleWith(representation)) {
+                        return representation;
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Malformed or oversized header: serve the default
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+    
+    /**
+     * Match an If-Match / If-None-Match header against an entity tag
+     * 
+     * @param header Header value: "*" or a comma-separated list of tags
+     * @param etag Current entity tag
+     * @param strong true for If-Match (weak tags never match), false for
+     *               If-None-Match (W/ prefixes are ignored)
+     * @return true if any listed tag matches
+     */
+    private static boolean etagMatches(String header, String etag, boolean strong) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (strong ? tag.equals(etag) : opaqueTag(tag).equals(opaqueTag(etag)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+    
     private Patient convertToEntity(PatientDTO dto) {
-        Patient patient = new Patient();
-        patient.setFirstName(dto.getFirstName());
-        patient.setLastName(dto.getLastName());
-        patient.setEmail(dto.getEmail());
-        patient.setPhone(dto.getPhone());
-        patient.setDateOfBirth(dto.getDateOfBirth());
-        patient.setGender(dto.getGender());
-        patient.setAddress(dto.getAddress());
-        patient.setEmergencyContact(dto.getEmergencyContact());
-        patient.setMedicalHistory(dto.getMedicalHistory());
-        patient.setInsurance(dto.getInsurance());
-        return patient;
+        return dto.toEntity();
     }
     
     private void updatePatientFromDTO(Patient patient, PatientDTO dto) {
@@ -0,0 +1,37 @@
+package com.medicare.hospital.dto;
+
+/**
+ * Number of patients in one age bucket
+ * 
+ * minAge and maxAge are inclusive; maxAge is null for the oldest bucket.
+ */
+public class AgeGroupCount {
+    
+    private String ageGroup;
+    private int minAge;
+    private Integer maxAge;
+    private long count;
+    
+    // Constructors
+    public AgeGroupCount() {}
+    
+    public AgeGroupCount(String ageGroup, int minAge, Integer maxAge, long count) {
+        this.ageGroup = ageGroup;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.count = count;
+    }
+    
+    // Getters and Setters
+    public String getAgeGroup() { return ageGroup; }
+    public void setAgeGroup(String ageGroup) { this.ageGroup = ageGroup; }
+    
+    public int getMinAge() { return minAge; }
+    public void setMinAge(int minAge) { this.minAge = minAge; }
+    
+    public Integer getMaxAge() { return maxAge; }
+    public void setMaxAge(Integer maxAge) { this.maxAge = maxAge; }
+    
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
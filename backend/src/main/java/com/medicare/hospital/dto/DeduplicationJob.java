@@ -0,0 +1,82 @@
+package com.medicare.hospital.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status and progress of a duplicate detection job
+ * 
+ * A job loads every patient, groups them into blocks of records sharing a
+ * blocking key, then compares the pairs within each block. progress is the
+ * completed fraction of the current phase.
+ */
+public class DeduplicationJob {
+    
+    /**
+     * Job phases, in order; a job ends in COMPLETED, CANCELLED or FAILED
+     */
+    public enum State {
+        LOADING, BLOCKING, COMPARING, COMPLETED, CANCELLED, FAILED
+    }
+    
+    private long id;
+    private State state;
+    private double progress;
+    private long patients;
+    private long blocks;
+    private long oversizedBlocks;
+    private long comparisons;
+    private long totalComparisons;
+    private long candidates;
+    private double minScore;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    
+    // Constructors
+    public DeduplicationJob() {}
+    
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+    
+    public State getState() { return state; }
+    public void setState(State state) { this.state = state; }
+    
+    public double getProgress() { return progress; }
+    public void setProgress(double progress) { this.progress = progress; }
+    
+    public long getPatients() { return patients; }
+    public void setPatients(long patients) { this.patients = patients; }
+    
+    public long getBlocks() { return blocks; }
+    public void setBlocks(long blocks) { this.blocks = blocks; }
+    
+    public long getOversizedBlocks() { return oversizedBlocks; }
+    public void setOversizedBlocks(long oversizedBlocks) { this.oversizedBlocks = oversizedBlocks; }
+    
+    public long getComparisons() { return comparisons; }
+    public void setComparisons(long comparisons) { this.comparisons = comparisons; }
+    
+    public long getTotalComparisons() { return totalComparisons; }
+    public void setTotalComparisons(long totalComparisons) { this.totalComparisons = totalComparisons; }
+    
+    public long getCandidates() { return candidates; }
+    public void setCandidates(long candidates) { this.candidates = candidates; }
+    
+    public double getMinScore() { return minScore; }
+    public void setMinScore(double minScore) { this.minScore = minScore; }
+    
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    
+    // Utility methods
+    public boolean isRunning() {
+        return state == State.LOADING || state == State.BLOCKING || state == State.COMPARING;
+    }
+}
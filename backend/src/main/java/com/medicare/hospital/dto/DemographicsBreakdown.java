@@ -0,0 +1,44 @@
+package com.medicare.hospital.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Demographic counts over the patients matching a filter
+ */
+public class DemographicsBreakdown {
+    
+    private long total;
+    private Map<String, Long> byGender;
+    private List<AgeGroupCount> byAgeGroup;
+    private Map<String, Long> byInsurance;
+    private long withoutInsurance;
+    
+    // Constructors
+    public DemographicsBreakdown() {}
+    
+    public DemographicsBreakdown(long total, Map<String, Long> byGender, List<AgeGroupCount> byAgeGroup,
+                                 Map<String, Long> byInsurance, long withoutInsurance) {
+        this.total = total;
+        this.byGender = byGender;
+        this.byAgeGroup = byAgeGroup;
+        this.byInsurance = byInsurance;
+        this.withoutInsurance = withoutInsurance;
+    }
+    
+    // Getters and Setters
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    
+    public Map<String, Long> getByGender() { return byGender; }
+    public void setByGender(Map<String, Long> byGender) { this.byGender = byGender; }
+    
+    public List<AgeGroupCount> getByAgeGroup() { return byAgeGroup; }
+    public void setByAgeGroup(List<AgeGroupCount> byAgeGroup) { this.byAgeGroup = byAgeGroup; }
+    
+    public Map<String, Long> getByInsurance() { return byInsurance; }
+    public void setByInsurance(Map<String, Long> byInsurance) { this.byInsurance = byInsurance; }
+    
+    public long getWithoutInsurance() { return withoutInsurance; }
+    public void setWithoutInsurance(long withoutInsurance) { this.withoutInsurance = withoutInsurance; }
+}
@@ -0,0 +1,56 @@
+package com.medicare.hospital.dto;
+
+import java.util.List;
+
+/**
+ * Pair of patients that probably are the same person
+ * 
+ * The patient with the lower ID comes first. Summaries are read when the
+ * candidate is returned, so they are null for a patient that has been
+ * deleted since the detection job ran.
+ */
+public class DuplicateCandidate {
+    
+    /**
+     * Fields on which the two patients agree (similarity of at least 0.9)
+     */
+    public enum Field {
+        FIRST_NAME, LAST_NAME, DATE_OF_BIRTH, PHONE, EMAIL
+    }
+    
+    private Long patientId;
+    private Long duplicateId;
+    private double score;
+    private List<Field> matchedOn;
+    private PatientSummary patient;
+    private PatientSummary duplicate;
+    
+    // Constructors
+    public DuplicateCandidate() {}
+    
+    public DuplicateCandidate(Long patientId, Long duplicateId, double score, List<Field> matchedOn) {
+        this.patientId = patientId;
+        this.duplicateId = duplicateId;
+        this.score = score;
+        this.matchedOn = matchedOn;
+    }
+    
+    // Getters and Setters
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+    
+    public Long getDuplicateId() { return duplicateId; }
+    public void setDuplicateId(Long duplicateId) { this.duplicateId = duplicateId; }
+    
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+    
+    public List<Field> getMatchedOn() { return matchedOn; }
+    public void setMatchedOn(List<Field> matchedOn) { this.matchedOn = matchedOn; }
+    
+    public PatientSummary getPatient() { return patient; }
+    public void setPatient(PatientSummary patient) { this.patient = patient; }
+    
+    public PatientSummary getDuplicate() { return duplicate; }
+    public void setDuplicate(PatientSummary duplicate) { this.duplicate = duplicate; }
+}
@@ -0,0 +1,56 @@
+package com.medicare.hospital.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk patient import
+ * 
+ * Rows are numbered from 1 in the order they were submitted (for CSV, the
+ * header line is not counted). Every rejected row is listed with the reason.
+ */
+public class ImportResult {
+    
+    private int totalRows;
+    private int imported;
+    private List<RowError> errors = new ArrayList<>();
+    
+    // Constructors
+    public ImportResult() {}
+    
+    // Getters and Setters
+    public int getTotalRows() { return totalRows; }
+    public void setTotalRows(int totalRows) { this.totalRows = totalRows; }
+    
+    public int getImported() { return imported; }
+    public void setImported(int imported) { this.imported = imported; }
+    
+    public int getFailed() { return errors.size(); }
+    
+    public List<RowError> getErrors() { return errors; }
+    public void setErrors(List<RowError> errors) { this.errors = errors; }
+    
+    // Utility methods
+    public void addError(int row, String message) {
+        errors.add(new RowError(row, message));
+    }
+    
+    // Inner class for a rejected row
+    public static class RowError {
+        private int row;
+        private String message;
+        
+        public RowError() {}
+        
+        public RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+        
+        public int getRow() { return row; }
+        public void setRow(int row) { this.row = row; }
+        
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
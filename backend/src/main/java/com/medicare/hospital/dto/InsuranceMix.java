@@ -0,0 +1,64 @@
+package com.medicare.hospital.dto;
+
+import java.util.List;
+
+/**
+ * Patient counts per insurance provider
+ * 
+ * Spellings of the same provider are counted together under its
+ * canonical name.
+ */
+public class InsuranceMix {
+    
+    private long insured;
+    private long withoutInsurance;
+    private List<ProviderCount> providers;
+    
+    // Constructors
+    public InsuranceMix() {}
+    
+    public InsuranceMix(long insured, long withoutInsurance, List<ProviderCount> providers) {
+        this.insured = insured;
+        this.withoutInsurance = withoutInsurance;
+        this.providers = providers;
+    }
+    
+    // Getters and Setters
+    public long getInsured() { return insured; }
+    public void setInsured(long insured) { this.insured = insured; }
+    
+    public long getWithoutInsurance() { return withoutInsurance; }
+    public void setWithoutInsurance(long withoutInsurance) { this.withoutInsurance = withoutInsurance; }
+    
+    public List<ProviderCount> getProviders() { return providers; }
+    public void setProviders(List<ProviderCount> providers) { this.providers = providers; }
+    
+    /**
+     * Number of patients of one provider
+     */
+    public static class ProviderCount {
+        
+        private int id;
+        private String name;
+        private long count;
+        
+        // Constructors
+        public ProviderCount() {}
+        
+        public ProviderCount(int id, String name, long count) {
+            this.id = id;
+            this.name = name;
+            this.count = count;
+        }
+        
+        // Getters and Setters
+        public int getId() { return id; }
+        public void setId(int id) { this.id = id; }
+        
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+    }
+}
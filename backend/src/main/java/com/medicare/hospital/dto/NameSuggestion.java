@@ -0,0 +1,25 @@
+package com.medicare.hospital.dto;
+
+/**
+ * Typeahead suggestion: patient ID and full name
+ */
+public class NameSuggestion {
+    
+    private Long id;
+    private String name;
+    
+    // Constructors
+    public NameSuggestion() {}
+    
+    public NameSuggestion(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+}
@@ -0,0 +1,49 @@
+package com.medicare.hospital.dto;
+
+import com.medicare.hospital.model.Patient;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the patient change feed
+ * 
+ * patient holds the current state for CREATED and UPDATED entries and is
+ * null for DELETED entries.
+ */
+public class PatientChange {
+    
+    private Type type;
+    private Long id;
+    private LocalDateTime changedAt;
+    private Patient patient;
+    
+    /**
+     * Kind of change, relative to the client's cursor
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+    
+    // Constructors
+    public PatientChange() {}
+    
+    public PatientChange(Type type, Long id, LocalDateTime changedAt, Patient patient) {
+        this.type = type;
+        this.id = id;
+        this.changedAt = changedAt;
+        this.patient = patient;
+    }
+    
+    // Getters and Setters
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public LocalDateTime getChangedAt() { return changedAt; }
+    public void setChangedAt(LocalDateTime changedAt) { this.changedAt = changedAt; }
+    
+    public Patient getPatient() { return patient; }
+    public void setPatient(Patient patient) { this.patient = patient; }
+}
@@ -1,8 +1,9 @@
 package com.medicare.hospital.dto;
 
 import com.medicare.hospital.model.Patient;
-import javax.validation.constraints.*;
+import jakarta.validation.constraints.*;
 import java.time.LocalDate;
+import java.time.Period;
 
 /**
  * Data Transfer Object for Patient
@@ -93,13 +94,28 @@ public class PatientDTO {
     public void setInsurance(String insurance) { this.insurance = insurance; }
     
     // Utility methods
+    public Patient toEntity() {
+        Patient patient = new Patient();
+        patient.setFirstName(firstName);
+        patient.setLastName(lastName);
+        patient.setEmail(email);
+        patient.setPhone(phone);
+        patient.setDateOfBirth(dateOfBirth);
+        patient.setGender(gender);
+        patient.setAddress(address);
+        patient.setEmergencyContact(emergencyContact);
+        patient.setMedicalHistory(medicalHistory);
+        patient.setInsurance(insurance);
+        return patient;
+    }
+    
     public String getFullName() {
         return firstName + " " + lastName;
     }
     
     public int getAge() {
         if (dateOfBirth != null) {
-            return LocalDate.now().getYear() - dateOfBirth.getYear();
+            return Period.between(dateOfBirth, LocalDate.now()).getYears();
         }
         return 0;
     }
@@ -0,0 +1,82 @@
+package com.medicare.hospital.dto;
+
+import com.medicare.hospital.model.Patient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight patient projection for list and search results
+ * 
+ * Selected directly with a JPQL constructor expression, so the large TEXT
+ * columns (address, medical history) are never read from the database or
+ * serialized. The full record is available from GET /api/patients/{id}.
+ */
+public class PatientSummary {
+    
+    /**
+     * JPQL select list matching the constructor, for use in repository queries
+     */
+    public static final String SELECT = "SELECT new com.medicare.hospital.dto.PatientSummary(" +
+        "p.id, p.firstName, p.lastName, p.email, p.phone, p.dateOfBirth, p.gender, p.createdAt) ";
+    
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phone;
+    private LocalDate dateOfBirth;
+    private Patient.Gender gender;
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public PatientSummary() {}
+    
+    public PatientSummary(Long id, String firstName, String lastName, String email, String phone,
+                          LocalDate dateOfBirth, Patient.Gender gender, LocalDateTime createdAt) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
+        this.dateOfBirth = dateOfBirth;
+        this.gender = gender;
+        this.createdAt = createdAt;
+    }
+    
+    public static PatientSummary from(Patient patient) {
+        return new PatientSummary(patient.getId(), patient.getFirstName(), patient.getLastName(),
+            patient.getEmail(), patient.getPhone(), patient.getDateOfBirth(), patient.getGender(),
+            patient.getCreatedAt());
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getFirstName() { return firstName; }
+    public void setFirstName(String firstName) { this.firstName = firstName; }
+    
+    public String getLastName() { return lastName; }
+    public void setLastName(String lastName) { this.lastName = lastName; }
+    
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+    
+    public LocalDate getDateOfBirth() { return dateOfBirth; }
+    public void setDateOfBirth(LocalDate dateOfBirth) { this.dateOfBirth = dateOfBirth; }
+    
+    public Patient.Gender getGender() { return gender; }
+    public void setGender(Patient.Gender gender) { this.gender = gender; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    // Utility methods
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+}
@@ -0,0 +1,128 @@
+package com.medicare.hospital.index;
+
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Histogram of patients per date of birth, at day granularity
+ * 
+ * Counts are kept in a Fenwick (binary indexed) tree over epoch days, so
+ * "how many patients were born on or before date D" takes O(log n). A
+ * patient is at least A years old today exactly when they were born on or
+ * before today.minusYears(A), so any age bucketing is a handful of such
+ * prefix counts and ages are exact, not just a difference of years.
+ * Dates before 1850 or after 2149 are kept in one extra slot at each end
+ * of the range, so they never share a slot with a real day.
+ */
+public class AgeHistogram implements PatientIndex {
+    
+    private static final LocalDate FIRST_DAY = LocalDate.of(1850, 1, 1);
+    private static final LocalDate LAST_DAY = LocalDate.of(2149, 12, 31);
+    private static final int MAX_AGE = 150;
+    
+    private final long base = FIRST_DAY.toEpochDay();
+    private final int size = (int) (LAST_DAY.toEpochDay() - base + 3);
+    private final long[] tree = new long[size + 1];
+    private long total;
+    private final ReadWriteLock lock;
+    private final PatientRows rows;
+    
+    AgeHistogram(ReadWriteLock lock, PatientRows rows) {
+        this.lock = lock;
+        this.rows = rows;
+    }
+    
+    @Override
+    public void add(int row) {
+        if (rows.birthDay(row) != PatientRows.NO_DATE) {
+            add(slot(rows.birthDay(row)), 1);
+            total++;
+        }
+    }
+    
+    @Override
+    public void remove(int row) {
+        if (rows.birthDay(row) != PatientRows.NO_DATE) {
+            add(slot(rows.birthDay(row)), -1);
+            total--;
+        }
+    }
+    
+    /**
+     * Count patients per age bucket
+     * 
+     * Boundaries [18, 31] give three buckets: under 18, 18 to 30, and 31 or older.
+     * 
+     * @param today Date to compute ages on
+     * @param boundaries Ascending minimum ages of each bucket after the first
+     * @return Count per bucket, boundaries.length + 1 entries
+     */
+    public long[] countByAge(LocalDate today, int[] boundaries) {
+        long[] counts = new long[boundaries.length + 1];
+        lock.readLock().lock();
+        try {
+            long olderThanPrevious = total;
+            for (int i = 0; i < boundaries.length; i++) {
+                long atLeast = countAtLeast(today, boundaries[i]);
+                counts[i] = olderThanPrevious - atLeast;
+                olderThanPrevious = atLeast;
+            }
+            counts[boundaries.length] = olderThanPrevious;
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Exact average age of all patients with a date of birth
+     * 
+     * Uses the identity sum(age) = sum over A >= 1 of count(age >= A).
+     * 
+     * @param today Date to compute ages on
+     * @return Average age, or 0 if there are no patients
+     */
+    public double averageAge(LocalDate today) {
+        lock.readLock().lock();
+        try {
+            if (total == 0) {
+                return 0.0;
+            }
+            long ageSum = 0;
+            for (int age = 1; age <= MAX_AGE; age++) {
+                long atLeast = countAtLeast(today, age);
+                if (atLeast == 0) {
+                    break;
+                }
+                ageSum += atLeast;
+            }
+            return (double) ageSum / total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Helper methods (callers must hold the lock)
+    private long countAtLeast(LocalDate today, int age) {
+        return prefix(slot(today.minusYears(age).toEpochDay()));
+    }
+    
+    private int slot(long epochDay) {
+        long offset = epochDay - base + 1;
+        return (int) Math.max(0, Math.min(size - 1, offset));
+    }
+    
+    private void add(int slot, long delta) {
+        for (int i = slot + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+    
+    private long prefix(int slot) {
+        long sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
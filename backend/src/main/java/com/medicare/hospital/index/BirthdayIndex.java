@@ -0,0 +1,118 @@
+package com.medicare.hospital.index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Sorted index of patient birthdays keyed by (month, day)
+ * 
+ * Keys are encoded as month * 100 + day, so a window of calendar days is a
+ * contiguous key range, or two ranges when it crosses December 31.
+ * Patients born on February 29 are treated as having their birthday on
+ * February 28 in non-leap years. Patients sharing a birthday are listed
+ * in ID order.
+ */
+public class BirthdayIndex implements PatientIndex {
+    
+    private static final int FEB_28 = 228;
+    private static final int FEB_29 = 229;
+    
+    private final NavigableMap<Integer, RoaringBitmap> byMonthDay = new TreeMap<>();
+    private final ReadWriteLock lock;
+    private final PatientRows rows;
+    
+    BirthdayIndex(ReadWriteLock lock, PatientRows rows) {
+        this.lock = lock;
+        this.rows = rows;
+    }
+    
+    @Override
+    public void add(int row) {
+        int birthDay = rows.birthDay(row);
+        if (birthDay != PatientRows.NO_DATE) {
+            byMonthDay.computeIfAbsent(key(birthDay), k -> new RoaringBitmap()).add((int) rows.id(row));
+        }
+    }
+    
+    @Override
+    public void remove(int row) {
+        int birthDay = rows.birthDay(row);
+        if (birthDay == PatientRows.NO_DATE) {
+            return;
+        }
+        int key = key(birthDay);
+        RoaringBitmap ids = byMonthDay.get(key);
+        ids.remove((int) rows.id(row));
+        if (ids.isEmpty()) {
+            byMonthDay.remove(key);
+        }
+    }
+    
+    /**
+     * Find patients whose birthday falls within the given date window
+     * 
+     * @param from First day of the window (inclusive)
+     * @param days Length of the window in days (at least 1)
+     * @return Patient IDs ordered by birthday, starting from the first day
+     */
+    public List<Long> findInWindow(LocalDate from, int days) {
+        List<Long> ids = new ArrayList<>();
+        if (days <= 0) {
+            return ids;
+        }
+        int start = key(MonthDay.from(from));
+        lock.readLock().lock();
+        try {
+            if (days >= 366) {
+                // The window covers every calendar day at least once
+                appendFrom(ids, byMonthDay.tailMap(start, true).values());
+                appendFrom(ids, byMonthDay.headMap(start, false).values());
+                return ids;
+            }
+            
+            LocalDate to = from.plusDays(days - 1);
+            int end = endKey(to);
+            if (start <= end && from.getYear() == to.getYear()) {
+                appendFrom(ids, byMonthDay.subMap(start, true, end, true).values());
+            } else {
+                appendFrom(ids, byMonthDay.tailMap(start, true).values());
+                appendFrom(ids, byMonthDay.headMap(end, true).values());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Helper methods
+    private int endKey(LocalDate to) {
+        int end = key(MonthDay.from(to));
+        // In non-leap years, Feb 29 birthdays are celebrated on Feb 28
+        if (end == FEB_28 && !to.isLeapYear()) {
+            return FEB_29;
+        }
+        return end;
+    }
+    
+    private static void appendFrom(List<Long> ids, Collection<RoaringBitmap> buckets) {
+        for (RoaringBitmap bucket : buckets) {
+            bucket.forEach((int id) -> ids.add((long) id));
+        }
+    }
+    
+    private static int key(int epochDay) {
+        return key(MonthDay.from(LocalDate.ofEpochDay(epochDay)));
+    }
+    
+    private static int key(MonthDay monthDay) {
+        return monthDay.getMonthValue() * 100 + monthDay.getDayOfMonth();
+    }
+}
@@ -0,0 +1,168 @@
+package com.medicare.hospital.index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Inverted index of medical history terms
+ * 
+ * Medical history text is lower-cased and split into alphanumeric tokens,
+ * dropping common stop words, and each token gets a compressed bitmap of
+ * patient IDs. Single-character tokens are kept, since they tell conditions apart
+ * ("type 1 diabetes", "hepatitis c"). Terms are kept sorted, so a token ending in '*' matches every term
+ * with that prefix (for example "diabet*").
+ * 
+ * A condition is a phrase whose tokens must all appear, in any order. Several
+ * conditions can be combined with ALL (AND) or ANY (OR).
+ */
+public class ConditionIndex implements PatientIndex {
+    
+    /**
+     * How multiple conditions are combined
+     */
+    public enum Mode {
+        ALL, ANY
+    }
+    
+    // "a" is not a stop word: it distinguishes "hepatitis a" or "vitamin a"
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "an", "and", "or", "the", "of", "with", "for", "in", "on", "to", "at", "by", "is", "was"));
+    
+    private final NavigableMap<String, RoaringBitmap> postings = new TreeMap<>();
+    private final ReadWriteLock lock;
+    private final PatientRows rows;
+    
+    ConditionIndex(ReadWriteLock lock, PatientRows rows) {
+        this.lock = lock;
+        this.rows = rows;
+    }
+    
+    @Override
+    public void add(int row) {
+        int id = (int) rows.id(row);
+        for (String term : tokenize(rows.medicalHistory(row))) {
+            postings.computeIfAbsent(term, t -> new RoaringBitmap()).add(id);
+        }
+    }
+    
+    @Override
+    public void remove(int row) {
+        int id = (int) rows.id(row);
+        for (String term : tokenize(rows.medicalHistory(row))) {
+            RoaringBitmap posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Find patients matching the given conditions
+     * 
+     * @param conditions Condition phrases, e.g. "diabetes" or "coronary artery"
+     * @param mode Whether all or any of the conditions must match
+     * @return Matching patient IDs in ascending order
+     */
+    public List<Long> find(Collection<String> conditions, Mode mode) {
+        RoaringBitmap result = null;
+        lock.readLock().lock();
+        try {
+            for (String condition : conditions) {
+                RoaringBitmap matches = matchPhrase(condition);
+                if (result == null) {
+                    result = matches;
+                } else if (mode == Mode.ALL) {
+                    result.and(matches);
+                } else {
+                    result.or(matches);
+                }
+                if (mode == Mode.ALL && result.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(result.getCardinality());
+        result.forEach((int id) -> ids.add((long) id));
+        return ids;
+    }
+    
+    /**
+     * Check whether a condition phrase contains any indexed term
+     * 
+     * Phrases made only of stop words or punctuation cannot be answered
+     * from the index and should be looked up in the database instead.
+     * 
+     * @param phrase Condition phrase
+     * @return true if find() can answer the phrase
+     */
+    public static boolean hasTerms(String phrase) {
+        return !tokenize(phrase.replace("*", " ")).isEmpty();
+    }
+    
+    // Helper methods (callers must hold the lock)
+    private RoaringBitmap matchPhrase(String phrase) {
+        RoaringBitmap result = null;
+        for (String word : phrase.trim().split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            List<String> tokens = new ArrayList<>(tokenize(prefix ? word.substring(0, word.length() - 1) : word));
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean last = i == tokens.size() - 1;
+                RoaringBitmap matches = prefix && last ? matchPrefix(tokens.get(i)) : matchTerm(tokens.get(i));
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.and(matches);
+                }
+                if (result.isEmpty()) {
+                    return result;
+                }
+            }
+        }
+        return result == null ? new RoaringBitmap() : result;
+    }
+    
+    private RoaringBitmap matchTerm(String term) {
+        RoaringBitmap posting = postings.get(term);
+        return posting == null ? new RoaringBitmap() : posting.clone();
+    }
+    
+    private RoaringBitmap matchPrefix(String prefix) {
+        return RoaringBitmap.or(postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().iterator());
+    }
+    
+    /**
+     * Split text into normalized terms
+     */
+    private static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+}
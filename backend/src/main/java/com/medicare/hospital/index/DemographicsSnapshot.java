@@ -0,0 +1,245 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Columnar scan of patient demographics for analytics
+ * 
+ * Reads the dense primitive columns of the shared PatientRows: birth date
+ * and registration date as epoch days, gender as its ordinal and insurance
+ * provider as its InsuranceDictionary ID. A scan is a tight loop over
+ * contiguous arrays, split across the fork-join pool for large registries.
+ * No entities are loaded or allocated per row, and nothing is kept besides
+ * the rows themselves.
+ */
+public class DemographicsSnapshot {
+    
+    private static final int NO_DATE = PatientRows.NO_DATE;
+    private static final byte NO_GENDER = PatientRows.NO_GENDER;
+    private static final int NO_INSURANCE = InsuranceDictionary.NONE;
+    
+    // Rows per fork-join leaf; smaller snapshots are scanned on the calling thread
+    private static final int LEAF_SIZE = 64 * 1024;
+    private static final Patient.Gender[] GENDERS = Patient.Gender.values();
+    
+    private final ReadWriteLock lock;
+    private final PatientRows rows;
+    private final InsuranceDictionary insuranceDictionary;
+    
+    DemographicsSnapshot(ReadWriteLock lock, PatientRows rows, InsuranceDictionary insuranceDictionary) {
+        this.lock = lock;
+        this.rows = rows;
+        this.insuranceDictionary = insuranceDictionary;
+    }
+    
+    /**
+     * Count matching patients, broken down by gender, insurance provider and
+     * age group
+     * 
+     * @param criteria Filter; an empty PatientCriteria matches every patient
+     * @param today Date to compute ages on
+     * @param ageBoundaries Ascending minimum ages of each age group after the first
+     * @return Counts over the matching patients
+     */
+    public Breakdown aggregate(PatientCriteria criteria, LocalDate today, int[] ageBoundaries) {
+        // Patient is at least A years old exactly when born on or before today - A years
+        int[] ageCutoffs = new int[ageBoundaries.length];
+        for (int i = 0; i < ageBoundaries.length; i++) {
+            ageCutoffs[i] = epochDay(today.minusYears(ageBoundaries[i]));
+        }
+        
+        lock.readLock().lock();
+        try {
+            Filter filter = resolve(criteria, today);
+            // Every code in the columns was interned before it was written, so it is below names.size()
+            List<String> insuranceNames = insuranceDictionary.names();
+            ScanTask task = new ScanTask(filter, ageCutoffs, insuranceNames.size(), 0, rows.size());
+            Breakdown breakdown = rows.size() > LEAF_SIZE ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+            breakdown.insuranceNames = insuranceNames;
+            return breakdown;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Get the number of patients in the snapshot
+     * 
+     * @return Row count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Helper methods
+    private static int epochDay(LocalDate date) {
+        return PatientRows.epochDay(date);
+    }
+    
+    private Filter resolve(PatientCriteria criteria, LocalDate today) {
+        Filter filter = new Filter();
+        filter.gender = criteria.getGender() == null ? NO_GENDER : (byte) criteria.getGender().ordinal();
+        LocalDate bornOnOrBefore = criteria.bornOnOrBefore(today);
+        filter.bornOnOrBefore = bornOnOrBefore == null ? Integer.MAX_VALUE : epochDay(bornOnOrBefore);
+        filter.bornAfter = epochDay(criteria.bornAfter(today));
+        filter.registeredFrom = epochDay(criteria.getRegisteredSince());
+        if (criteria.isWithoutInsurance()) {
+            filter.insurance = NO_INSURANCE;
+            filter.matchInsurance = true;
+        } else if (criteria.hasInsurance()) {
+            // Unknown providers match nothing
+            filter.insurance = insuranceDictionary.idOf(criteria.getInsurance()).orElse(Integer.MIN_VALUE);
+            filter.matchInsurance = true;
+        }
+        return filter;
+    }
+    
+    /**
+     * Counts produced by aggregate()
+     */
+    public static class Breakdown {
+        private long total;
+        private final long[] byGender = new long[GENDERS.length];
+        private long withoutInsurance;
+        private final long[] byInsurance;
+        private final long[] byAgeGroup;
+        private List<String> insuranceNames;
+        
+        private Breakdown(int insuranceCount, int ageGroupCount) {
+            this.byInsurance = new long[insuranceCount];
+            this.byAgeGroup = new long[ageGroupCount];
+        }
+        
+        public long getTotal() { return total; }
+        
+        public long getCount(Patient.Gender gender) { return byGender[gender.ordinal()]; }
+        
+        public long getWithoutInsurance() { return withoutInsurance; }
+        
+        /**
+         * @return Patient count per insurance provider with at least one match,
+         *         keyed by provider name
+         */
+        public Map<String, Long> getByInsurance() {
+            Map<String, Long> counts = new HashMap<>();
+            for (int code = 0; code < byInsurance.length; code++) {
+                if (byInsurance[code] > 0) {
+                    counts.put(insuranceNames.get(code), byInsurance[code]);
+                }
+            }
+            return counts;
+        }
+        
+        /**
+         * @return Count per age group; patients without a date of birth are not counted
+         */
+        public long[] getByAgeGroup() { return byAgeGroup.clone(); }
+        
+        private void add(Breakdown other) {
+            total += other.total;
+            withoutInsurance += other.withoutInsurance;
+            for (int i = 0; i < byGender.length; i++) {
+                byGender[i] += other.byGender[i];
+            }
+            for (int i = 0; i < byInsurance.length; i++) {
+                byInsurance[i] += other.byInsurance[i];
+            }
+            for (int i = 0; i < byAgeGroup.length; i++) {
+                byAgeGroup[i] += other.byAgeGroup[i];
+            }
+        }
+    }
+    
+    // Criteria resolved against the columns' encodings
+    private static final class Filter {
+        private byte gender;
+        private int bornOnOrBefore;
+        private int bornAfter;
+        private int registeredFrom;
+        private boolean matchInsurance;
+        private int insurance;
+    }
+    
+    private final class ScanTask extends RecursiveTask<Breakdown> {
+        private final Filter filter;
+        private final int[] ageCutoffs;
+        private final int insuranceCount;
+        private final int from;
+        private final int to;
+        
+        private ScanTask(Filter filter, int[] ageCutoffs, int insuranceCount, int from, int to) {
+            this.filter = filter;
+            this.ageCutoffs = ageCutoffs;
+            this.insuranceCount = insuranceCount;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Breakdown compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(filter, ageCutoffs, insuranceCount, from, middle);
+                left.fork();
+                Breakdown breakdown = new ScanTask(filter, ageCutoffs, insuranceCount, middle, to).compute();
+                breakdown.add(left.join());
+                return breakdown;
+            }
+            return scan();
+        }
+        
+        private Breakdown scan() {
+            Breakdown breakdown = new Breakdown(insuranceCount, ageCutoffs.length + 1);
+            boolean filterDates = filter.bornOnOrBefore != Integer.MAX_VALUE || filter.bornAfter != NO_DATE;
+            for (int row = from; row < to; row++) {
+                int birthDay = rows.birthDay(row);
+                byte gender = rows.gender(row);
+                if (filter.gender != NO_GENDER && gender != filter.gender) {
+                    continue;
+                }
+                if (filterDates && (birthDay == NO_DATE || birthDay > filter.bornOnOrBefore || birthDay <= filter.bornAfter)) {
+                    continue;
+                }
+                if (filter.registeredFrom != NO_DATE && rows.registeredDay(row) < filter.registeredFrom) {
+                    continue;
+                }
+                int insurance = rows.insuranceCode(row);
+                if (filter.matchInsurance && insurance != filter.insurance) {
+                    continue;
+                }
+                
+                breakdown.total++;
+                if (gender != NO_GENDER) {
+                    breakdown.byGender[gender]++;
+                }
+                if (insurance == NO_INSURANCE) {
+                    breakdown.withoutInsurance++;
+                } else {
+                    breakdown.byInsurance[insurance]++;
+                }
+                if (birthDay != NO_DATE) {
+                    // Cutoffs descend: the older the boundary, the earlier the cutoff
+                    int group = 0;
+                    while (group < ageCutoffs.length && birthDay <= ageCutoffs[group]) {
+                        group++;
+                    }
+                    breakdown.byAgeGroup[group]++;
+                }
+            }
+            return breakdown;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.medicare.hospital.index;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * In-memory membership index of registered patient emails
+ * 
+ * Maps each normalized (trimmed, lower-cased) email to the ID of the patient
+ * holding it. Email validation can then tell without SQL that an email is
+ * free or already belongs to the patient being saved. Only an apparent
+ * conflict needs to be confirmed against the database. The unique
+ * constraint on the email column remains the final guarantee.
+ */
+public class EmailIndex implements PatientIndex {
+    
+    private final Map<String, Long> owners = new HashMap<>();
+    private final ReadWriteLock lock;
+    private final PatientRows rows;
+    
+    EmailIndex(ReadWriteLock lock, PatientRows rows) {
+        this.lock = lock;
+        this.rows = rows;
+    }
+    
+    @Override
+    public void add(int row) {
+        if (rows.email(row) != null) {
+            owners.put(normalize(rows.email(row)), rows.id(row));
+        }
+    }
+    
+    @Override
+    public void remove(int row) {
+        if (rows.email(row) != null) {
+            owners.remove(normalize(rows.email(row)), rows.id(row));
+        }
+    }
+    
+    /**
+     * Find the patient currently holding an email
+     * 
+     * @param email Email to look up (case insensitive)
+     * @return ID of the owning patient, or null if the email is not registered
+     */
+    public Long findOwner(String email) {
+        String key = normalize(email);
+        lock.readLock().lock();
+        try {
+            return owners.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
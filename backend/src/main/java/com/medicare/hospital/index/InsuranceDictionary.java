@@ -0,0 +1,152 @@
+package com.medicare.hospital.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Dictionary of insurance providers
+ * 
+ * Free-text provider names are reduced to a canonical key (case, punctuation,
+ * "and"/"&" and corporate suffixes such as "Inc" or "Insurance" are ignored, and
+ * configured aliases like "BCBS" are resolved) and interned to a small int ID.
+ * The InsuranceIndex keeps the patients of each provider by that ID.
+ * 
+ * Provider IDs are stable for the lifetime of the application, across index
+ * rebuilds; indexes use them as dictionary codes.
+ */
+@Component
+public class InsuranceDictionary {
+    
+    /** Provider ID of a blank insurance name */
+    public static final int NONE = -1;
+    
+    private static final Set<String> NOISE_WORDS = new HashSet<>(Arrays.asList(
+        "and", "inc", "llc", "ltd", "corp", "corporation", "co", "company", "insurance", "ins"));
+    
+    // Comma-separated alias:Provider Name pairs
+    @Value("${app.insurance.aliases:}")
+    private String aliasSpec;
+    
+    private final Map<String, String> aliases = new HashMap<>();
+    private final Map<String, Integer> idsByKey = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    @PostConstruct
+    void loadAliases() {
+        if (aliasSpec == null) {
+            return;
+        }
+        for (String pair : aliasSpec.split(",")) {
+            int separator = pair.indexOf(':');
+            if (separator > 0) {
+                String name = pair.substring(separator + 1).trim();
+                aliases.put(baseKey(pair.substring(0, separator)), name);
+            }
+        }
+    }
+    
+    /**
+     * Get the ID of a provider, adding it to the dictionary if it is new
+     * 
+     * @param name Provider name as entered
+     * @return Provider ID, or NONE if the name is blank
+     */
+    public int intern(String name) {
+        String key = canonicalKey(name);
+        if (key.isEmpty()) {
+            return NONE;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer id = idsByKey.get(key);
+            if (id == null) {
+                id = names.size();
+                String alias = aliases.get(baseKey(name));
+                names.add(alias != null ? alias : name.trim().replaceAll("\\s+", " "));
+                idsByKey.put(key, id);
+            }
+            return id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Look up the ID of a provider without adding it
+     * 
+     * @param name Provider name in any known spelling
+     * @return Provider ID, or empty if the provider is unknown
+     */
+    public OptionalInt idOf(String name) {
+        String key = canonicalKey(name);
+        lock.readLock().lock();
+        try {
+            Integer id = idsByKey.get(key);
+            return id == null ? OptionalInt.empty() : OptionalInt.of(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Get the display names of all providers, indexed by provider ID
+     * 
+     * @return Provider names
+     */
+    public List<String> names() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(names);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Reduce a provider name to the key its spellings share
+     * 
+     * @param name Provider name as entered
+     * @return Canonical key, empty for a blank name
+     */
+    public String canonicalKey(String name) {
+        String key = baseKey(name);
+        String alias = aliases.get(key);
+        return alias != null ? baseKey(alias) : key;
+    }
+    
+    // Helper methods
+    private static String baseKey(String name) {
+        if (name == null) {
+            return "";
+        }
+        String[] words = name.toLowerCase(Locale.ROOT)
+            .replace("&", " ")
+            .replaceAll("[^a-z0-9 ]", " ")
+            .trim()
+            .split("\\s+");
+        StringBuilder key = new StringBuilder();
+        for (String word : words) {
+            if (!word.isEmpty() && !NOISE_WORDS.contains(word)) {
+                if (key.length() > 0) {
+                    key.append(' ');
+                }
+                key.append(word);
+            }
+        }
+        return key.toString();
+    }
+}
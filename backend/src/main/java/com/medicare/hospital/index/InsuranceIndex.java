@@ -0,0 +1,170 @@
+package com.medicare.hospital.index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Patients of each insurance provider
+ * 
+ * Each provider of the InsuranceDictionary keeps the bitmap of its patient
+ * IDs, so per-provider counts and "patients of provider X" are dictionary
+ * hits instead of LIKE scans.
+ */
+public class InsuranceIndex implements PatientIndex {
+    
+    private final InsuranceDictionary dictionary;
+    // Indexed by provider ID; providers interned since the last patient was added have no bitmap yet
+    private final List<RoaringBitmap> patientsByProvider = new ArrayList<>();
+    private final RoaringBitmap uninsured = new RoaringBitmap();
+    private final ReadWriteLock lock;
+    private final PatientRows rows;
+    
+    InsuranceIndex(ReadWriteLock lock, PatientRows rows, InsuranceDictionary dictionary) {
+        this.lock = lock;
+        this.rows = rows;
+        this.dictionary = dictionary;
+    }
+    
+    @Override
+    public void add(int row) {
+        int id = (int) rows.id(row);
+        int provider = rows.insuranceCode(row);
+        if (provider == InsuranceDictionary.NONE) {
+            uninsured.add(id);
+        } else {
+            while (patientsByProvider.size() <= provider) {
+                patientsByProvider.add(new RoaringBitmap());
+            }
+            patientsByProvider.get(provider).add(id);
+        }
+    }
+    
+    @Override
+    public void remove(int row) {
+        int id = (int) rows.id(row);
+        int provider = rows.insuranceCode(row);
+        if (provider == InsuranceDictionary.NONE) {
+            uninsured.remove(id);
+        } else {
+            patientsByProvider.get(provider).remove(id);
+        }
+    }
+    
+    /**
+     * Get the patients of a provider
+     * 
+     * @param providerId Provider ID
+     * @return Copy of the provider's patient ID bitmap
+     */
+    public RoaringBitmap patientsOf(int providerId) {
+        lock.readLock().lock();
+        try {
+            return providerId >= 0 && providerId < patientsByProvider.size()
+                ? patientsByProvider.get(providerId).clone()
+                : new RoaringBitmap();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Get the patients without insurance
+     * 
+     * @return Copy of the uninsured patient ID bitmap
+     */
+    public RoaringBitmap uninsuredPatients() {
+        lock.readLock().lock();
+        try {
+            return uninsured.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Find the patients of a provider
+     * 
+     * The name is matched by canonical key, as in InsuranceDictionary.idOf,
+     * so "BCBS" and "Blue Cross & Blue Shield Inc" both find every spelling
+     * of "Blue Cross Blue Shield".
+     * 
+     * @param name Provider name in any known spelling
+     * @return Patient IDs in ascending order, empty if the provider is unknown
+     */
+    public List<Long> findPatients(String name) {
+        OptionalInt provider = dictionary.idOf(name);
+        return provider.isPresent() ? toIds(patientsOf(provider.getAsInt())) : new ArrayList<>();
+    }
+    
+    /**
+     * Get the patient count of every provider with at least one patient
+     * 
+     * @return Providers, most patients first
+     */
+    public List<ProviderCount> providerCounts() {
+        // Every provider with a bitmap was interned before, so it has a name
+        List<String> names = dictionary.names();
+        List<ProviderCount> counts = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int provider = 0; provider < patientsByProvider.size(); provider++) {
+                long count = patientsByProvider.get(provider).getLongCardinality();
+                if (count > 0) {
+                    counts.add(new ProviderCount(provider, names.get(provider), count));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        counts.sort(Comparator.comparingLong(ProviderCount::getCount).reversed()
+            .thenComparing(ProviderCount::getName));
+        return counts;
+    }
+    
+    /**
+     * Get the number of patients without insurance
+     * 
+     * @return Uninsured patient count
+     */
+    public long uninsuredCount() {
+        lock.readLock().lock();
+        try {
+            return uninsured.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Helper methods
+    private static List<Long> toIds(RoaringBitmap bitmap) {
+        List<Long> ids = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((int id) -> ids.add((long) id));
+        return ids;
+    }
+    
+    /**
+     * Patient count of one provider
+     */
+    public static class ProviderCount {
+        private final int id;
+        private final String name;
+        private final long count;
+        
+        public ProviderCount(int id, String name, long count) {
+            this.id = id;
+            this.name = name;
+            this.count = count;
+        }
+        
+        public int getId() { return id; }
+        
+        public String getName() { return name; }
+        
+        public long getCount() { return count; }
+    }
+}
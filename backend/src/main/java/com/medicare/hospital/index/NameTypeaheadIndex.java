@@ -0,0 +1,126 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.dto.NameSuggestion;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Sorted prefix index of patient names for typeahead suggestions
+ * 
+ * Every patient is registered under three normalized keys: first name,
+ * last name and full name (the names that are present, joined). Keys are held
+ * in a sorted map, so all names starting with a prefix form one contiguous
+ * range that can be walked until enough suggestions are collected. The
+ * names themselves are read from the shared PatientRows.
+ */
+public class NameTypeaheadIndex implements PatientIndex {
+    
+    private final NavigableMap<String, RoaringBitmap> byName = new TreeMap<>();
+    private final ReadWriteLock lock;
+    private final PatientRows rows;
+    
+    NameTypeaheadIndex(ReadWriteLock lock, PatientRows rows) {
+        this.lock = lock;
+        this.rows = rows;
+    }
+    
+    @Override
+    public void add(int row) {
+        int id = (int) rows.id(row);
+        for (String key : keys(row)) {
+            byName.computeIfAbsent(key, k -> new RoaringBitmap()).add(id);
+        }
+    }
+    
+    @Override
+    public void remove(int row) {
+        int id = (int) rows.id(row);
+        for (String key : keys(row)) {
+            RoaringBitmap ids = byName.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    byName.remove(key);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Suggest patients whose first, last or full name starts with a prefix
+     * 
+     * Names are visited in alphabetical order, so shorter exact matches
+     * ("ann") come before longer ones ("anna").
+     * 
+     * @param prefix Typed prefix (case insensitive)
+     * @param limit Maximum number of suggestions
+     * @return Suggestions, at most one per patient
+     */
+    public List<NameSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<NameSuggestion> suggestions = new ArrayList<>();
+        if (key.isEmpty() || limit <= 0) {
+            return suggestions;
+        }
+        
+        RoaringBitmap seen = new RoaringBitmap();
+        lock.readLock().lock();
+        try {
+            for (RoaringBitmap ids : byName.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+                IntIterator iterator = ids.getIntIterator();
+                while (iterator.hasNext()) {
+                    int id = iterator.next();
+                    if (seen.checkedAdd(id)) {
+                        int row = rows.rowOf(id);
+                        String fullName = fullName(rows.firstName(row), rows.lastName(row));
+                        suggestions.add(new NameSuggestion((long) id, fullName));
+                        if (suggestions.size() == limit) {
+                            return suggestions;
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return suggestions;
+    }
+    
+    // Helper methods (callers must hold the lock)
+    private Set<String> keys(int row) {
+        String firstName = rows.firstName(row);
+        String lastName = rows.lastName(row);
+        Set<String> keys = new LinkedHashSet<>();
+        for (String name : new String[] { firstName, lastName, fullName(firstName, lastName) }) {
+            String key = normalize(name);
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+    
+    private static String fullName(String firstName, String lastName) {
+        StringJoiner fullName = new StringJoiner(" ");
+        for (String name : new String[] { firstName, lastName }) {
+            if (name != null) {
+                fullName.add(name);
+            }
+        }
+        return fullName.toString();
+    }
+    
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
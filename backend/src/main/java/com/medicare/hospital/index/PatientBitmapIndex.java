@@ -0,0 +1,226 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Compressed bitmap indexes over patient IDs, one bitmap per attribute value
+ * 
+ * A PatientCriteria filter becomes an intersection of bitmaps, so its cost
+ * depends on the compressed size of the bitmaps involved rather than on the
+ * number of patients. Dates are indexed per month and per day: a range is
+ * the union of its whole months plus the days of the partial months at
+ * either end. Results are ID-ordered, and a page is read by seeking to its
+ * first ID instead of skipping over earlier ones.
+ * 
+ * Patient IDs must fit in an int.
+ */
+public class PatientBitmapIndex implements PatientIndex {
+    
+    private static final Patient.Gender[] GENDERS = Patient.Gender.values();
+    
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<Patient.Gender, RoaringBitmap> byGender = new EnumMap<>(Patient.Gender.class);
+    private final DateBitmaps byBirthDate = new DateBitmaps();
+    private final DateBitmaps byRegistrationDate = new DateBitmaps();
+    private final ReadWriteLock lock;
+    private final PatientRows rows;
+    private final InsuranceDictionary insuranceDictionary;
+    // Insurance has its own per-provider bitmaps
+    private final InsuranceIndex insuranceIndex;
+    
+    PatientBitmapIndex(ReadWriteLock lock, PatientRows rows, InsuranceDictionary insuranceDictionary,
+                       InsuranceIndex insuranceIndex) {
+        this.lock = lock;
+        this.rows = rows;
+        this.insuranceDictionary = insuranceDictionary;
+        this.insuranceIndex = insuranceIndex;
+    }
+    
+    @Override
+    public void add(int row) {
+        int id = (int) rows.id(row);
+        all.add(id);
+        if (rows.gender(row) != PatientRows.NO_GENDER) {
+            byGender.computeIfAbsent(GENDERS[rows.gender(row)], g -> new RoaringBitmap()).add(id);
+        }
+        byBirthDate.add(id, rows.birthDay(row));
+        byRegistrationDate.add(id, rows.registeredDay(row));
+    }
+    
+    @Override
+    public void remove(int row) {
+        int id = (int) rows.id(row);
+        all.remove(id);
+        if (rows.gender(row) != PatientRows.NO_GENDER) {
+            removeFrom(byGender, GENDERS[rows.gender(row)], id);
+        }
+        byBirthDate.remove(id, rows.birthDay(row));
+        byRegistrationDate.remove(id, rows.registeredDay(row));
+    }
+    
+    /**
+     * Find the IDs of patients matching a filter
+     * 
+     * @param criteria Filter; an empty PatientCriteria matches every patient
+     * @param today Date to compute ages on
+     * @param offset Number of matching IDs to skip
+     * @param limit Maximum number of IDs to return
+     * @return One page of matching IDs in ascending order, and the total count
+     */
+    public Result find(PatientCriteria criteria, LocalDate today, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = evaluate(criteria, today);
+            long count = matches.getLongCardinality();
+            List<Long> ids = new ArrayList<>(Math.max(0, (int) Math.min(limit, count - offset)));
+            if (offset < count) {
+                PeekableIntIterator iterator = matches.getIntIterator();
+                iterator.advanceIfNeeded(matches.select((int) offset));
+                while (iterator.hasNext() && ids.size() < limit) {
+                    ids.add((long) iterator.next());
+                }
+            }
+            return new Result(ids, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Helper methods (callers must hold a lock)
+    private RoaringBitmap evaluate(PatientCriteria criteria, LocalDate today) {
+        List<RoaringBitmap> required = new ArrayList<>();
+        if (criteria.getGender() != null) {
+            required.add(byGender.getOrDefault(criteria.getGender(), new RoaringBitmap()));
+        }
+        if (criteria.isWithoutInsurance()) {
+            required.add(insuranceIndex.uninsuredPatients());
+        } else if (criteria.hasInsurance()) {
+            OptionalInt provider = insuranceDictionary.idOf(criteria.getInsurance());
+            required.add(provider.isPresent() ? insuranceIndex.patientsOf(provider.getAsInt()) : new RoaringBitmap());
+        }
+        LocalDate bornOnOrBefore = criteria.bornOnOrBefore(today);
+        LocalDate bornAfter = criteria.bornAfter(today);
+        if (bornOnOrBefore != null || bornAfter != null) {
+            required.add(byBirthDate.range(bornAfter == null ? null : bornAfter.plusDays(1), bornOnOrBefore));
+        }
+        if (criteria.getRegisteredSince() != null) {
+            required.add(byRegistrationDate.range(criteria.getRegisteredSince(), null));
+        }
+        
+        if (required.isEmpty()) {
+            return all;
+        }
+        // Intersect smallest first so intermediate results stay small
+        required.sort((a, b) -> Long.compare(a.getLongCardinality(), b.getLongCardinality()));
+        RoaringBitmap result = required.get(0).clone();
+        for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+            result.and(required.get(i));
+        }
+        return result;
+    }
+    
+    private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int id) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+    
+    /**
+     * One page of filter results
+     */
+    public static class Result {
+        private final List<Long> ids;
+        private final long count;
+        
+        private Result(List<Long> ids, long count) {
+            this.ids = ids;
+            this.count = count;
+        }
+        
+        public List<Long> getIds() { return ids; }
+        
+        public long getCount() { return count; }
+    }
+    
+    // Bitmaps per month and per day of a date attribute
+    private static final class DateBitmaps {
+        private final NavigableMap<Integer, RoaringBitmap> byMonth = new TreeMap<>();
+        private final NavigableMap<Integer, RoaringBitmap> byDay = new TreeMap<>();
+        
+        private void add(int id, int epochDay) {
+            if (epochDay != PatientRows.NO_DATE) {
+                int month = month(LocalDate.ofEpochDay(epochDay));
+                byMonth.computeIfAbsent(month, k -> new RoaringBitmap()).add(id);
+                byDay.computeIfAbsent(epochDay, k -> new RoaringBitmap()).add(id);
+            }
+        }
+        
+        private void remove(int id, int epochDay) {
+            if (epochDay != PatientRows.NO_DATE) {
+                removeFrom(byMonth, month(LocalDate.ofEpochDay(epochDay)), id);
+                removeFrom(byDay, epochDay, id);
+            }
+        }
+        
+        /**
+         * @param from First date, inclusive, or null for no lower bound
+         * @param to Last date, inclusive, or null for no upper bound
+         * @return IDs with a date in the range
+         */
+        private RoaringBitmap range(LocalDate from, LocalDate to) {
+            if (from != null && to != null && from.isAfter(to)) {
+                return new RoaringBitmap();
+            }
+            List<RoaringBitmap> parts = new ArrayList<>();
+            // Whole months strictly inside the range come from the month bitmaps
+            int firstMonth = from == null || from.getDayOfMonth() == 1 ? monthOrMin(from) : month(from) + 1;
+            int lastMonth = to == null || to.equals(to.withDayOfMonth(to.lengthOfMonth())) ? monthOrMax(to) : month(to) - 1;
+            if (firstMonth <= lastMonth) {
+                parts.addAll(byMonth.subMap(firstMonth, true, lastMonth, true).values());
+            }
+            // Days of the partial months at either end come from the day bitmaps
+            if (from != null && from.getDayOfMonth() != 1) {
+                LocalDate endOfMonth = from.withDayOfMonth(from.lengthOfMonth());
+                addDays(parts, from, to != null && to.isBefore(endOfMonth) ? to : endOfMonth);
+            }
+            if (to != null && !to.equals(to.withDayOfMonth(to.lengthOfMonth()))
+                    && (from == null || month(to) != month(from) || from.getDayOfMonth() == 1)) {
+                LocalDate startOfMonth = to.withDayOfMonth(1);
+                addDays(parts, from != null && from.isAfter(startOfMonth) ? from : startOfMonth, to);
+            }
+            return RoaringBitmap.or(parts.iterator());
+        }
+        
+        private void addDays(List<RoaringBitmap> parts, LocalDate from, LocalDate to) {
+            parts.addAll(byDay.subMap((int) from.toEpochDay(), true, (int) to.toEpochDay(), true).values());
+        }
+        
+        private static int month(LocalDate date) {
+            return date.getYear() * 12 + date.getMonthValue() - 1;
+        }
+        
+        private static int monthOrMin(LocalDate date) {
+            return date == null ? Integer.MIN_VALUE : month(date);
+        }
+        
+        private static int monthOrMax(LocalDate date) {
+            return date == null ? Integer.MAX_VALUE : month(date);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+
+/**
+ * Event published by PatientService whenever a patient is saved or deleted
+ * 
+ * Listeners receive it after the surrounding transaction commits, so
+ * indexes never see changes that were rolled back.
+ */
+public class PatientChangedEvent {
+    
+    public enum Type {
+        SAVED, DELETED
+    }
+    
+    private final Type type;
+    private final Long patientId;
+    private final Patient patient;
+    
+    private PatientChangedEvent(Type type, Long patientId, Patient patient) {
+        this.type = type;
+        this.patientId = patientId;
+        this.patient = patient;
+    }
+    
+    public static PatientChangedEvent saved(Patient patient) {
+        return new PatientChangedEvent(Type.SAVED, patient.getId(), patient);
+    }
+    
+    public static PatientChangedEvent deleted(Long patientId) {
+        return new PatientChangedEvent(Type.DELETED, patientId, null);
+    }
+    
+    public Type getType() { return type; }
+    
+    public Long getPatientId() { return patientId; }
+    
+    /**
+     * @return Saved patient, or null for deletions
+     */
+    public Patient getPatient() { return patient; }
+}
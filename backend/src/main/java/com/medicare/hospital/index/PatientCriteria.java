@@ -0,0 +1,84 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+
+import java.time.LocalDate;
+
+/**
+ * Demographic filter evaluated by the in-memory indexes
+ * 
+ * Every condition that is set must hold; unset conditions match all
+ * patients. Ages are exact on the given date.
+ */
+public class PatientCriteria {
+    
+    private Patient.Gender gender;
+    private Integer minAge;
+    private Integer maxAge;
+    private String insurance;
+    private boolean withoutInsurance;
+    private LocalDate registeredSince;
+    
+    public PatientCriteria gender(Patient.Gender gender) { this.gender = gender; return this; }
+    
+    public PatientCriteria minAge(Integer minAge) { this.minAge = minAge; return this; }
+    
+    public PatientCriteria maxAge(Integer maxAge) { this.maxAge = maxAge; return this; }
+    
+    public PatientCriteria insurance(String insurance) { this.insurance = insurance; return this; }
+    
+    public PatientCriteria withoutInsurance(boolean withoutInsurance) { this.withoutInsurance = withoutInsurance; return this; }
+    
+    public PatientCriteria registeredSince(LocalDate registeredSince) { this.registeredSince = registeredSince; return this; }
+    
+    public Patient.Gender getGender() { return gender; }
+    
+    public Integer getMinAge() { return minAge; }
+    
+    public Integer getMaxAge() { return maxAge; }
+    
+    public String getInsurance() { return insurance; }
+    
+    public boolean isWithoutInsurance() { return withoutInsurance; }
+    
+    public LocalDate getRegisteredSince() { return registeredSince; }
+    
+    /**
+     * @return true if an insurance provider is required
+     */
+    public boolean hasInsurance() {
+        return insurance != null && !insurance.trim().isEmpty();
+    }
+    
+    /**
+     * Reject criteria that contradict each other
+     * 
+     * @throws IllegalArgumentException if both an insurance provider and
+     *         withoutInsurance are given
+     */
+    public void validate() {
+        if (withoutInsurance && hasInsurance()) {
+            throw new IllegalArgumentException("insurance and withoutInsurance cannot be combined");
+        }
+    }
+    
+    /**
+     * Latest date of birth satisfying minAge
+     * 
+     * @param today Date to compute ages on
+     * @return Inclusive bound, or null if minAge is not set
+     */
+    public LocalDate bornOnOrBefore(LocalDate today) {
+        return minAge == null ? null : today.minusYears(minAge);
+    }
+    
+    /**
+     * Date of birth that is just too early for maxAge
+     * 
+     * @param today Date to compute ages on
+     * @return Exclusive bound, or null if maxAge is not set
+     */
+    public LocalDate bornAfter(LocalDate today) {
+        return maxAge == null ? null : today.minusYears(maxAge + 1L);
+    }
+}
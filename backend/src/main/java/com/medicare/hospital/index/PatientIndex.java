@@ -0,0 +1,29 @@
+package com.medicare.hospital.index;
+
+/**
+ * In-memory index over patient data
+ * 
+ * Each index belongs to one PatientIndexes generation, which is loaded
+ * from the repository and then fed every committed create, update and
+ * delete. Patient attributes are read from the generation's shared
+ * PatientRows: an update removes the patient's row from every index,
+ * rewrites the row and adds it back. The indexes of a generation share
+ * its read-write lock: queries take the read lock themselves, add() and
+ * remove() are called with the write lock held.
+ */
+public interface PatientIndex {
+    
+    /**
+     * Index the patient stored in a row
+     * 
+     * @param row Row of the shared PatientRows, already written
+     */
+    void add(int row);
+    
+    /**
+     * Remove the patient stored in a row, before the row is rewritten or deleted
+     * 
+     * @param row Row of the shared PatientRows
+     */
+    void remove(int row);
+}
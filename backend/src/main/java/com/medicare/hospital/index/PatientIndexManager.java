@@ -0,0 +1,303 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the PatientIndexes in sync with the patients table
+ * 
+ * Indexes are built from the repository once the application is ready
+ * and then maintained from committed PatientChangedEvents. Until the
+ * first build finishes, callers should fall back to the repository.
+ * 
+ * A rebuild loads a new generation of indexes next to the one in use,
+ * without blocking writers: changes committed meanwhile are applied to
+ * the current generation as usual and also recorded, then replayed onto
+ * the new generation, which is swapped in once it has caught up. Only the
+ * last few recorded changes are replayed under the change lock.
+ * 
+ * If an index fails to apply a change, the indexes stop answering queries
+ * and are rebuilt on the next app.index.rebuild-retry-ms tick. The bitmap
+ * indexes address patients by int, so once patient IDs outgrow that range
+ * the indexes are switched off for good and every query uses the database.
+ * 
+ * The statistics counters are periodically reconciled against aggregate
+ * queries on the database. Drift must be seen on two consecutive checks
+ * before it is repaired, so writes in flight during a check are not
+ * mistaken for drift; repair is a rebuild, and the current indexes keep
+ * answering queries until it is swapped in.
+ */
+@Component
+public class PatientIndexManager {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PatientIndexManager.class);
+    
+    // Recorded changes left to replay when the new generation is swapped in
+    private static final int SWAP_BACKLOG = 64;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private InsuranceDictionary insuranceDictionary;
+    
+    @Value("${app.index.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+    
+    private volatile PatientIndexes current;
+    private volatile boolean ready;
+    private volatile boolean rebuildRequired;
+    private volatile boolean disabled;
+    private boolean driftSeen;
+    
+    // Held by writers only for the time it takes to apply one change
+    private final Lock changeLock = new ReentrantLock();
+    private final Lock rebuildLock = new ReentrantLock();
+    // Changes committed while a rebuild is loading; null when no rebuild runs
+    private List<PatientChangedEvent> pendingChanges;
+    
+    // Bumped on every applied change; prefixed with the start time so tags
+    // from a previous run never match
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), 36);
+    private volatile long generation;
+    
+    /**
+     * Build the indexes when the application starts
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildIfRequired();
+    }
+    
+    /**
+     * Rebuild the indexes if they are missing or have missed a change
+     */
+    @Scheduled(fixedDelayString = "${app.index.rebuild-retry-ms:60000}",
+               initialDelayString = "${app.index.rebuild-retry-ms:60000}")
+    public void rebuildIfRequired() {
+        if ((ready && !rebuildRequired) || disabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            rebuildRequired = true;
+            logger.error("Index rebuild failed; will retry on the next attempt", e);
+        }
+    }
+    
+    /**
+     * Build a new generation of indexes from the repository and swap it in
+     * 
+     * Patients are read in ID order one batch at a time, so the whole table
+     * is never held in memory. The current generation keeps answering
+     * queries and receiving changes until the swap.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            changeLock.lock();
+            try {
+                pendingChanges = new ArrayList<>();
+                rebuildRequired = false;
+            } finally {
+                changeLock.unlock();
+            }
+            try {
+                load();
+            } finally {
+                changeLock.lock();
+                try {
+                    pendingChanges = null;
+                } finally {
+                    changeLock.unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    /**
+     * Apply a committed patient change to the indexes
+     * 
+     * A change committed while a rebuild is loading is also recorded, to be
+     * replayed onto the new generation, so it is never overwritten by a
+     * stale row. Runs after commit, so a failing index must not fail the
+     * request: it takes the indexes out of service until they are rebuilt
+     * instead.
+     * 
+     * @param event Patient change event
+     */
+    @TransactionalEventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (disabled || !fitsIndexes(event.getPatientId())) {
+            return;
+        }
+        changeLock.lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+            }
+            if (ready) {
+                try {
+                    apply(current, event);
+                } catch (RuntimeException e) {
+                    ready = false;
+                    rebuildRequired = true;
+                    logger.error("Failed to apply change of patient {} to the indexes; queries use the database "
+                        + "until the indexes are rebuilt", event.getPatientId(), e);
+                }
+            }
+            generation++;
+        } finally {
+            changeLock.unlock();
+        }
+    }
+    
+    /**
+     * Compare the statistics counters with aggregate queries on the
+     * database and rebuild the indexes if the drift persists across two
+     * consecutive checks
+     */
+    @Scheduled(fixedDelayString = "${app.statistics.reconcile-interval-ms:900000}",
+               initialDelayString = "${app.statistics.reconcile-interval-ms:900000}")
+    public void reconcileStatistics() {
+        PatientIndexes indexes = getIndexes();
+        if (indexes == null) {
+            return;
+        }
+        if (indexes.getStatisticsAggregator().matches(patientRepository.countGroupByGender())) {
+            driftSeen = false;
+            return;
+        } else if (!driftSeen) {
+            driftSeen = true;
+            return;
+        }
+        logger.warn("Patient statistics drifted from the database, rebuilding the indexes");
+        driftSeen = false;
+        rebuildRequired = true;
+        rebuildIfRequired();
+    }
+    
+    /**
+     * Get the indexes currently answering queries
+     * 
+     * Hold on to the returned generation for the whole query, so every
+     * index it reads comes from the same one.
+     * 
+     * @return Current indexes, or null if callers should use the database
+     */
+    public PatientIndexes getIndexes() {
+        PatientIndexes indexes = current;
+        return ready ? indexes : null;
+    }
+    
+    /**
+     * Check whether the indexes can answer queries
+     * 
+     * @return true if indexes can answer queries
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Get a tag that changes whenever a patient change has been applied
+     * 
+     * Read it before querying: a response built afterwards reflects at
+     * least the state the tag stands for.
+     * 
+     * @return Current registry version tag
+     */
+    public String getVersionTag() {
+        return instanceTag + "." + generation;
+    }
+    
+    // Helper methods
+    private void load() {
+        long start = System.currentTimeMillis();
+        PatientIndexes building = new PatientIndexes(insuranceDictionary);
+        long lastId = 0L;
+        long count = 0L;
+        List<Patient> batch;
+        do {
+            batch = patientRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, rebuildBatchSize));
+            for (Patient patient : batch) {
+                if (!fitsIndexes(patient.getId())) {
+                    return;
+                }
+                building.index(patient);
+                lastId = patient.getId();
+            }
+            count += batch.size();
+        } while (batch.size() == rebuildBatchSize);
+        
+        long replayed = 0L;
+        while (true) {
+            List<PatientChangedEvent> changes;
+            changeLock.lock();
+            try {
+                if (disabled) {
+                    return;
+                } else if (pendingChanges.size() <= SWAP_BACKLOG) {
+                    for (PatientChangedEvent change : pendingChanges) {
+                        apply(building, change);
+                    }
+                    replayed += pendingChanges.size();
+                    current = building;
+                    generation++;
+                    ready = true;
+                    break;
+                }
+                changes = pendingChanges;
+                pendingChanges = new ArrayList<>();
+            } finally {
+                changeLock.unlock();
+            }
+            for (PatientChangedEvent change : changes) {
+                apply(building, change);
+            }
+            replayed += changes.size();
+        }
+        logger.info("Indexed {} patients and replayed {} changes in {} ms",
+            count, replayed, System.currentTimeMillis() - start);
+    }
+    
+    private static void apply(PatientIndexes indexes, PatientChangedEvent event) {
+        if (event.getType() == PatientChangedEvent.Type.DELETED) {
+            indexes.remove(event.getPatientId());
+        } else {
+            indexes.index(event.getPatient());
+        }
+    }
+    
+    private boolean fitsIndexes(Long patientId) {
+        if (patientId <= Integer.MAX_VALUE) {
+            return true;
+        }
+        if (!disabled) {
+            disabled = true;
+            ready = false;
+            current = null;
+            logger.error("Patient ID {} exceeds the int range of the in-memory indexes; indexes disabled, "
+                + "queries use the database", patientId);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One generation of the in-memory patient indexes
+ * 
+ * The PatientIndexManager loads a new generation next to the one in use
+ * and swaps it in once it has caught up, so queries and writes never wait
+ * for a rebuild. All indexes of a generation share one read-write lock:
+ * a change is applied to every index under the write lock, so a query
+ * never sees it applied to some indexes and not to others. They also
+ * share one PatientRows, the only per-patient mapping of the generation.
+ */
+public class PatientIndexes {
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final PatientRows rows = new PatientRows();
+    private final InsuranceDictionary insuranceDictionary;
+    private final PatientSearchIndex searchIndex;
+    private final NameTypeaheadIndex typeaheadIndex;
+    private final EmailIndex emailIndex;
+    private final ConditionIndex conditionIndex;
+    private final BirthdayIndex birthdayIndex;
+    private final AgeHistogram ageHistogram;
+    private final InsuranceIndex insuranceIndex;
+    private final PatientBitmapIndex bitmapIndex;
+    private final DemographicsSnapshot demographicsSnapshot;
+    private final PatientStatisticsAggregator statisticsAggregator;
+    private final List<PatientIndex> indexes;
+    
+    PatientIndexes(InsuranceDictionary insuranceDictionary) {
+        this.insuranceDictionary = insuranceDictionary;
+        this.searchIndex = new PatientSearchIndex(lock, rows);
+        this.typeaheadIndex = new NameTypeaheadIndex(lock, rows);
+        this.emailIndex = new EmailIndex(lock, rows);
+        this.conditionIndex = new ConditionIndex(lock, rows);
+        this.birthdayIndex = new BirthdayIndex(lock, rows);
+        this.ageHistogram = new AgeHistogram(lock, rows);
+        this.insuranceIndex = new InsuranceIndex(lock, rows, insuranceDictionary);
+        this.bitmapIndex = new PatientBitmapIndex(lock, rows, insuranceDictionary, insuranceIndex);
+        this.demographicsSnapshot = new DemographicsSnapshot(lock, rows, insuranceDictionary);
+        this.statisticsAggregator = new PatientStatisticsAggregator(lock, rows);
+        this.indexes = Arrays.asList(searchIndex, typeaheadIndex, emailIndex, conditionIndex, birthdayIndex,
+            ageHistogram, insuranceIndex, bitmapIndex, statisticsAggregator);
+    }
+    
+    /**
+     * Add or replace a patient in every index
+     * 
+     * @param patient Patient to index
+     */
+    void index(Patient patient) {
+        // Interned before taking the lock, so the dictionary's lock is never held inside it
+        int insuranceCode = insuranceDictionary.intern(patient.getInsurance());
+        lock.writeLock().lock();
+        try {
+            int row = rows.rowOf(patient.getId());
+            if (row != PatientRows.NO_ROW) {
+                for (PatientIndex index : indexes) {
+                    index.remove(row);
+                }
+            }
+            row = rows.put(patient, insuranceCode);
+            for (PatientIndex index : indexes) {
+                index.add(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove a patient from every index
+     * 
+     * @param patientId Patient ID
+     */
+    void remove(Long patientId) {
+        lock.writeLock().lock();
+        try {
+            int row = rows.rowOf(patientId);
+            if (row == PatientRows.NO_ROW) {
+                return;
+            }
+            for (PatientIndex index : indexes) {
+                index.remove(row);
+            }
+            rows.remove(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public PatientSearchIndex getSearchIndex() { return searchIndex; }
+    
+    public NameTypeaheadIndex getTypeaheadIndex() { return typeaheadIndex; }
+    
+    public EmailIndex getEmailIndex() { return emailIndex; }
+    
+    public ConditionIndex getConditionIndex() { return conditionIndex; }
+    
+    public BirthdayIndex getBirthdayIndex() { return birthdayIndex; }
+    
+    public AgeHistogram getAgeHistogram() { return ageHistogram; }
+    
+    public InsuranceIndex getInsuranceIndex() { return insuranceIndex; }
+    
+    public PatientBitmapIndex getBitmapIndex() { return bitmapIndex; }
+    
+    public DemographicsSnapshot getDemographicsSnapshot() { return demographicsSnapshot; }
+    
+    public PatientStatisticsAggregator getStatisticsAggregator() { return statisticsAggregator; }
+}
@@ -0,0 +1,215 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Indexed patient attributes, one dense row per patient
+ * 
+ * The indexes of a PatientIndexes generation share these columns instead
+ * of each keeping its own per-patient map: when a patient changes, an
+ * index reads the values it indexed before from the patient's row, and
+ * the new ones once the row has been rewritten. Dates are epoch days,
+ * gender is its ordinal and insurance is the InsuranceDictionary ID.
+ * 
+ * Rows stay dense - a deleted row is filled with the last one - and
+ * patient IDs are mapped to rows by an open-addressing hash table of row
+ * numbers, so no boxed keys or entries are allocated per patient.
+ * Not thread-safe; PatientIndexes guards it with the generation's lock.
+ */
+final class PatientRows {
+    
+    /** Row of a patient that is not indexed */
+    static final int NO_ROW = -1;
+    /** Marker for a missing date */
+    static final int NO_DATE = Integer.MIN_VALUE;
+    /** Marker for a missing gender */
+    static final byte NO_GENDER = -1;
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] birthDays = new int[INITIAL_CAPACITY];
+    private int[] registeredDays = new int[INITIAL_CAPACITY];
+    private byte[] genders = new byte[INITIAL_CAPACITY];
+    private int[] insuranceCodes = new int[INITIAL_CAPACITY];
+    private String[] firstNames = new String[INITIAL_CAPACITY];
+    private String[] lastNames = new String[INITIAL_CAPACITY];
+    private String[] emails = new String[INITIAL_CAPACITY];
+    private String[] medicalHistories = new String[INITIAL_CAPACITY];
+    private int size;
+    
+    // Linear-probing table of row numbers keyed by ids[row]; at most half full
+    private int[] table = newTable(2 * INITIAL_CAPACITY);
+    private int shift = 64 - Integer.numberOfTrailingZeros(table.length);
+    
+    /**
+     * Find the row of a patient
+     * 
+     * @param patientId Patient ID
+     * @return Row, or NO_ROW if the patient is not indexed
+     */
+    int rowOf(long patientId) {
+        for (int slot = home(patientId); ; slot = (slot + 1) & (table.length - 1)) {
+            int row = table[slot];
+            if (row == NO_ROW || ids[row] == patientId) {
+                return row;
+            }
+        }
+    }
+    
+    /**
+     * Write a patient's attributes to its row, appending a row if it has none
+     * 
+     * @param patient Patient to store
+     * @param insuranceCode InsuranceDictionary ID of the patient's provider
+     * @return Row of the patient
+     */
+    int put(Patient patient, int insuranceCode) {
+        int row = rowOf(patient.getId());
+        if (row == NO_ROW) {
+            if (size == ids.length) {
+                grow();
+            }
+            row = size++;
+            ids[row] = patient.getId();
+            table[freeSlot(patient.getId())] = row;
+        }
+        birthDays[row] = epochDay(patient.getDateOfBirth());
+        registeredDays[row] = patient.getCreatedAt() == null ? NO_DATE : epochDay(patient.getCreatedAt().toLocalDate());
+        genders[row] = patient.getGender() == null ? NO_GENDER : (byte) patient.getGender().ordinal();
+        insuranceCodes[row] = insuranceCode;
+        firstNames[row] = patient.getFirstName();
+        lastNames[row] = patient.getLastName();
+        emails[row] = patient.getEmail();
+        medicalHistories[row] = patient.getMedicalHistory();
+        return row;
+    }
+    
+    /**
+     * Delete a row, moving the last row into its place
+     * 
+     * @param row Row to delete
+     */
+    void remove(int row) {
+        deleteSlot(slotOf(row));
+        int last = --size;
+        if (row != last) {
+            table[slotOf(last)] = row;
+            ids[row] = ids[last];
+            birthDays[row] = birthDays[last];
+            registeredDays[row] = registeredDays[last];
+            genders[row] = genders[last];
+            insuranceCodes[row] = insuranceCodes[last];
+            firstNames[row] = firstNames[last];
+            lastNames[row] = lastNames[last];
+            emails[row] = emails[last];
+            medicalHistories[row] = medicalHistories[last];
+        }
+        firstNames[last] = null;
+        lastNames[last] = null;
+        emails[last] = null;
+        medicalHistories[last] = null;
+    }
+    
+    /**
+     * @return Number of rows
+     */
+    int size() { return size; }
+    
+    long id(int row) { return ids[row]; }
+    
+    /**
+     * @return Date of birth as an epoch day, or NO_DATE
+     */
+    int birthDay(int row) { return birthDays[row]; }
+    
+    /**
+     * @return Registration date as an epoch day, or NO_DATE
+     */
+    int registeredDay(int row) { return registeredDays[row]; }
+    
+    /**
+     * @return Gender ordinal, or NO_GENDER
+     */
+    byte gender(int row) { return genders[row]; }
+    
+    /**
+     * @return InsuranceDictionary ID, or InsuranceDictionary.NONE
+     */
+    int insuranceCode(int row) { return insuranceCodes[row]; }
+    
+    String firstName(int row) { return firstNames[row]; }
+    
+    String lastName(int row) { return lastNames[row]; }
+    
+    String email(int row) { return emails[row]; }
+    
+    String medicalHistory(int row) { return medicalHistories[row]; }
+    
+    static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+    
+    // Helper methods
+    private int home(long patientId) {
+        return (int) ((patientId * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+    
+    private int freeSlot(long patientId) {
+        int slot = home(patientId);
+        while (table[slot] != NO_ROW) {
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return slot;
+    }
+    
+    private int slotOf(int row) {
+        int slot = home(ids[row]);
+        while (table[slot] != row) {
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return slot;
+    }
+    
+    // Backward-shift deletion: pull later entries of the probe run into the gap
+    private void deleteSlot(int gap) {
+        int mask = table.length - 1;
+        for (int slot = (gap + 1) & mask; table[slot] != NO_ROW; slot = (slot + 1) & mask) {
+            int home = home(ids[table[slot]]);
+            // Move the entry unless its home lies cyclically in (gap, slot]
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = table[slot];
+                gap = slot;
+            }
+        }
+        table[gap] = NO_ROW;
+    }
+    
+    private void grow() {
+        int newCapacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, newCapacity);
+        birthDays = Arrays.copyOf(birthDays, newCapacity);
+        registeredDays = Arrays.copyOf(registeredDays, newCapacity);
+        genders = Arrays.copyOf(genders, newCapacity);
+        insuranceCodes = Arrays.copyOf(insuranceCodes, newCapacity);
+        firstNames = Arrays.copyOf(firstNames, newCapacity);
+        lastNames = Arrays.copyOf(lastNames, newCapacity);
+        emails = Arrays.copyOf(emails, newCapacity);
+        medicalHistories = Arrays.copyOf(medicalHistories, newCapacity);
+        
+        table = newTable(2 * newCapacity);
+        shift = 64 - Integer.numberOfTrailingZeros(table.length);
+        for (int row = 0; row < size; row++) {
+            table[freeSlot(ids[row])] = row;
+        }
+    }
+    
+    private static int[] newTable(int length) {
+        int[] table = new int[length];
+        Arrays.fill(table, NO_ROW);
+        return table;
+    }
+}
@@ -0,0 +1,201 @@
+package com.medicare.hospital.index;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Trigram inverted index over patient first name, last name and email
+ * 
+ * Each field is lower-cased and split into overlapping 3-character grams,
+ * each with a compressed bitmap of the patient IDs containing it. A query
+ * is answered by intersecting the bitmaps of its own grams, verifying the
+ * surviving candidates against their fields in the shared PatientRows and
+ * ranking them by match quality: exact field match, then prefix, then
+ * substring. Queries shorter than a trigram have no grams to intersect
+ * and match nothing; callers answer them from the NameTypeaheadIndex.
+ */
+public class PatientSearchIndex implements PatientIndex {
+    
+    private static final int GRAM_SIZE = 3;
+    
+    /** Shortest query the index can answer */
+    public static final int MIN_QUERY_LENGTH = GRAM_SIZE;
+    
+    private static final Comparator<Match> RANKING = Comparator
+        .comparingInt((Match m) -> m.score).reversed()
+        .thenComparingInt(m -> m.fieldLength)
+        .thenComparingLong(m -> m.patientId);
+    
+    private final Map<String, RoaringBitmap> postings = new HashMap<>();
+    private final ReadWriteLock lock;
+    private final PatientRows rows;
+    
+    PatientSearchIndex(ReadWriteLock lock, PatientRows rows) {
+        this.lock = lock;
+        this.rows = rows;
+    }
+    
+    @Override
+    public void add(int row) {
+        int id = (int) rows.id(row);
+        for (String gram : grams(fields(row))) {
+            postings.computeIfAbsent(gram, g -> new RoaringBitmap()).add(id);
+        }
+    }
+    
+    @Override
+    public void remove(int row) {
+        int id = (int) rows.id(row);
+        for (String gram : grams(fields(row))) {
+            RoaringBitmap posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Search for patients whose first name, last name or email contains the query
+     * 
+     * @param query Search query (case insensitive)
+     * @param limit Maximum number of results
+     * @return IDs of matching patients, best match first; empty for queries
+     *         shorter than MIN_QUERY_LENGTH
+     */
+    public List<Long> search(String query, int limit) {
+        String needle = normalize(query);
+        if (needle.length() < MIN_QUERY_LENGTH || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        PriorityQueue<Match> top = new PriorityQueue<>(RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            IntIterator ids = candidates(needle).getIntIterator();
+            while (ids.hasNext()) {
+                offer(top, score(rows.rowOf(ids.next()), needle), limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        List<Match> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Match match : ranked) {
+            ids.add(match.patientId);
+        }
+        return ids;
+    }
+    
+    /**
+     * @return Number of indexed patients
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Helper methods (callers must hold the lock)
+    private RoaringBitmap candidates(String needle) {
+        List<RoaringBitmap> lists = new ArrayList<>();
+        for (String gram : grams(new String[] { needle })) {
+            RoaringBitmap posting = postings.get(gram);
+            if (posting == null) {
+                return new RoaringBitmap();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+        
+        RoaringBitmap result = lists.get(0).clone();
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.and(lists.get(i));
+        }
+        return result;
+    }
+    
+    private String[] fields(int row) {
+        return new String[] {
+            normalize(rows.firstName(row)),
+            normalize(rows.lastName(row)),
+            normalize(rows.email(row))
+        };
+    }
+    
+    private Match score(int row, String needle) {
+        long id = rows.id(row);
+        Match best = null;
+        for (String field : fields(row)) {
+            int score;
+            if (field.equals(needle)) {
+                score = 3;
+            } else if (field.startsWith(needle)) {
+                score = 2;
+            } else if (field.contains(needle)) {
+                score = 1;
+            } else {
+                continue;
+            }
+            if (best == null || score > best.score
+                    || (score == best.score && field.length() < best.fieldLength)) {
+                best = new Match(id, score, field.length());
+            }
+        }
+        return best;
+    }
+    
+    private static void offer(PriorityQueue<Match> top, Match match, int limit) {
+        if (match != null) {
+            top.offer(match);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+    }
+    
+    private static Set<String> grams(String[] fields) {
+        Set<String> grams = new HashSet<>();
+        for (String field : fields) {
+            for (int i = 0; i + GRAM_SIZE <= field.length(); i++) {
+                grams.add(field.substring(i, i + GRAM_SIZE));
+            }
+        }
+        return grams;
+    }
+    
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static final class Match {
+        private final long patientId;
+        private final int score;
+        private final int fieldLength;
+        
+        private Match(long patientId, int score, int fieldLength) {
+            this.patientId = patientId;
+            this.score = score;
+            this.fieldLength = fieldLength;
+        }
+    }
+}
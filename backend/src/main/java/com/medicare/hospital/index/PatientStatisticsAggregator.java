@@ -0,0 +1,129 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Running patient statistics maintained from committed writes
+ * 
+ * Keeps the total and per-gender counts so statistics can be read in
+ * constant time; ages come from the AgeHistogram. The patient's row in
+ * the shared PatientRows holds what was counted for it, so an update or
+ * delete can subtract exactly what it previously added.
+ * 
+ * The PatientIndexManager periodically compares the counters with
+ * aggregate queries on the database and rebuilds the indexes if they
+ * have drifted.
+ */
+public class PatientStatisticsAggregator implements PatientIndex {
+    
+    private static final Patient.Gender[] GENDERS = Patient.Gender.values();
+    
+    private final Counters counters = new Counters();
+    private final ReadWriteLock lock;
+    private final PatientRows rows;
+    
+    PatientStatisticsAggregator(ReadWriteLock lock, PatientRows rows) {
+        this.lock = lock;
+        this.rows = rows;
+    }
+    
+    @Override
+    public void add(int row) {
+        counters.apply(rows.gender(row), 1);
+    }
+    
+    @Override
+    public void remove(int row) {
+        counters.apply(rows.gender(row), -1);
+    }
+    
+    /**
+     * @return Total number of patients
+     */
+    public long getTotal() {
+        lock.readLock().lock();
+        try {
+            return counters.total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * @param gender Patient gender
+     * @return Number of patients with the given gender
+     */
+    public long getCount(Patient.Gender gender) {
+        lock.readLock().lock();
+        try {
+            return counters.byGender.getOrDefault(gender, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Compare the counters with per-gender counts from the database
+     * 
+     * @param genderCounts Rows of gender (null if unknown) and patient count
+     * @return true if the total and every per-gender count match
+     */
+    public boolean matches(Iterable<Object[]> genderCounts) {
+        Counters actual = new Counters();
+        for (Object[] row : genderCounts) {
+            long count = ((Number) row[1]).longValue();
+            actual.total += count;
+            if (row[0] != null) {
+                actual.byGender.put((Patient.Gender) row[0], count);
+            }
+        }
+        lock.readLock().lock();
+        try {
+            return actual.equals(counters);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Running totals
+    private static final class Counters {
+        private long total;
+        private final Map<Patient.Gender, Long> byGender = new EnumMap<>(Patient.Gender.class);
+        
+        private void apply(byte gender, int delta) {
+            total += delta;
+            if (gender != PatientRows.NO_GENDER) {
+                byGender.merge(GENDERS[gender], (long) delta, Long::sum);
+            }
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Counters)) return false;
+            Counters other = (Counters) o;
+            return total == other.total
+                && withoutZeros(byGender).equals(withoutZeros(other.byGender));
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(total);
+        }
+        
+        private static Map<Patient.Gender, Long> withoutZeros(Map<Patient.Gender, Long> counts) {
+            Map<Patient.Gender, Long> result = new EnumMap<>(Patient.Gender.class);
+            counts.forEach((gender, count) -> {
+                if (count != 0L) {
+                    result.put(gender, count);
+                }
+            });
+            return result;
+        }
+    }
+}
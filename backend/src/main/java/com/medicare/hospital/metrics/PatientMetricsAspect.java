@@ -0,0 +1,100 @@
+package com.medicare.hospital.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records latency and result size for every PatientService operation and
+ * PatientRepository query
+ * 
+ * Meters published under /actuator/metrics:
+ * - patient.service.operations: timer tagged by operation and outcome
+ * - patient.repository.queries: timer tagged by operation and outcome
+ * - patient.repository.rows: rows returned per query, tagged by operation
+ * 
+ * Timers publish p50, p95 and p99. Meters are cached per operation and
+ * outcome, so recording only costs a map lookup and a clock read.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(value = "app.metrics.patient-operations.enabled", matchIfMissing = true)
+public class PatientMetricsAspect {
+    
+    private static final String SERVICE_TIMER = "patient.service.operations";
+    private static final String REPOSITORY_TIMER = "patient.repository.queries";
+    private static final String ROWS_SUMMARY = "patient.repository.rows";
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+    
+    @Around("execution(public * com.medicare.hospital.service.PatientService.*(..))")
+    public Object timeServiceOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint, false);
+    }
+    
+    @Around("execution(* com.medicare.hospital.repository.PatientRepository+.*(..))")
+    public Object timeRepositoryQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, joinPoint, true);
+    }
+    
+    // Helper methods
+    private Object time(String name, ProceedingJoinPoint joinPoint, boolean countRows) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = "success";
+            if (countRows) {
+                recordRows(operation, result);
+            }
+            return result;
+        } finally {
+            timer(name, operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private void recordRows(String operation, Object result) {
+        long rows;
+        if (result instanceof Collection) {
+            rows = ((Collection<?>) result).size();
+        } else if (result instanceof Slice) {
+            rows = ((Slice<?>) result).getNumberOfElements();
+        } else if (result instanceof Optional) {
+            rows = ((Optional<?>) result).isPresent() ? 1 : 0;
+        } else {
+            return;
+        }
+        rowSummaries.computeIfAbsent(operation, op -> DistributionSummary.builder(ROWS_SUMMARY)
+                .description("Rows returned per patient repository query")
+                .baseUnit("rows")
+                .tag("operation", op)
+                .register(meterRegistry))
+            .record(rows);
+    }
+    
+    private Timer timer(String name, String operation, String outcome) {
+        return timers.computeIfAbsent(name + ':' + operation + ':' + outcome, key -> Timer.builder(name)
+            .tag("operation", operation)
+            .tag("outcome", outcome)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry));
+    }
+}
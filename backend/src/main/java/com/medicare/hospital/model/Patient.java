@@ -1,11 +1,14 @@
 package com.medicare.hospital.model;
 
-import javax.persistence.*;
-import javax.validation.constraints.Email;
-import javax.validation.constraints.NotBlank;
-import javax.validation.constraints.NotNull;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.Period;
 
 /**
  * Patient Entity representing a hospital patient
@@ -15,11 +18,20 @@ import java.time.LocalDateTime;
  * personal details, medical history, and insurance information.
  */
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", indexes = {
+    @Index(name = "idx_patients_last_name_id", columnList = "last_name, id"),
+    @Index(name = "idx_patients_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_patients_updated_at_id", columnList = "updated_at, id"),
+    @Index(name = "idx_patients_phone_reversed", columnList = "phone_reversed")
+})
 public class Patient {
     
+    // Pooled table generator: IDs are handed out in blocks, so inserts can be
+    // JDBC-batched (IDENTITY forces Hibernate to insert rows one at a time)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "patient_id")
+    @TableGenerator(name = "patient_id", table = "id_generator", pkColumnName = "name",
+                    valueColumnName = "next_val", pkColumnValue = "patients", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "First name is required")
@@ -38,6 +50,12 @@ public class Patient {
     @Column(name = "phone_number")
     private String phone;
     
+    // Digits of the phone number in reverse order, so "last N digits"
+    // lookups become an indexed prefix match
+    @JsonIgnore
+    @Column(name = "phone_reversed", length = 20)
+    private String phoneReversed;
+    
     @NotNull(message = "Date of birth is required")
     @Column(name = "date_of_birth")
     private LocalDate dateOfBirth;
@@ -62,6 +80,11 @@ public class Patient {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Optimistic locking; also serves as the entity tag for conditional requests
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     // Enum for Gender
     public enum Gender {
         MALE, FEMALE, OTHER
@@ -75,7 +98,7 @@ public class Patient {
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
-        this.phone = phone;
+        setPhone(phone);
         this.dateOfBirth = dateOfBirth;
         this.gender = gender;
         this.createdAt = LocalDateTime.now();
@@ -85,12 +108,14 @@ public class Patient {
     // Lifecycle callbacks
     @PrePersist
     protected void onCreate() {
+        normalizePhone();
         createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        updatedAt = createdAt;
     }
     
     @PreUpdate
     protected void onUpdate() {
+        normalizePhone();
         updatedAt = LocalDateTime.now();
     }
     
@@ -108,7 +133,12 @@ public class Patient {
     public void setEmail(String email) { this.email = email; }
     
     public String getPhone() { return phone; }
-    public void setPhone(String phone) { this.phone = phone; }
+    public void setPhone(String phone) {
+        this.phone = phone;
+        normalizePhone();
+    }
+    
+    public String getPhoneReversed() { return phoneReversed; }
     
     public LocalDate getDateOfBirth() { return dateOfBirth; }
     public void setDateOfBirth(LocalDate dateOfBirth) { this.dateOfBirth = dateOfBirth; }
@@ -134,13 +164,52 @@ public class Patient {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
     // Utility methods
+    public void normalizePhone() {
+        this.phoneReversed = phone == null ? null : reverseDigits(phone);
+    }
+    
+    /**
+     * Keep only the digits of a phone number, in reverse order
+     * 
+     * @param phone Phone number in any format
+     * @return Reversed digits, e.g. "4321" for "(55) 1234"; empty if there are none
+     */
+    public static String reverseDigits(String phone) {
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = phone.length() - 1; i >= 0; i--) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+    
+    /**
+     * Reversed digits to look a phone number up by
+     * 
+     * @param phone Phone number in any format, may be null
+     * @return Reversed digits, or null if there are none ("n/a", "-"), as such
+     *         numbers do not identify a patient
+     */
+    public static String phoneLookupKey(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = reverseDigits(phone);
+        return digits.isEmpty() ? null : digits;
+    }
+    
     public String getFullName() {
         return firstName + " " + lastName;
     }
     
     public int getAge() {
-        return LocalDate.now().getYear() - dateOfBirth.getYear();
+        return Period.between(dateOfBirth, LocalDate.now()).getYears();
     }
     
     @Override
@@ -0,0 +1,44 @@
+package com.medicare.hospital.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Record of a deleted patient
+ * 
+ * Written in the same transaction as the delete, so the change feed can
+ * report deletions. Tombstones are purged after the change feed retention
+ * period.
+ */
+@Entity
+@Table(name = "patient_tombstones", indexes = {
+    @Index(name = "idx_patient_tombstones_deleted_at_id", columnList = "deleted_at, patient_id")
+})
+public class PatientTombstone {
+    
+    @Id
+    @Column(name = "patient_id")
+    private Long patientId;
+    
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+    
+    // Constructors
+    public PatientTombstone() {}
+    
+    public PatientTombstone(Long patientId, LocalDateTime deletedAt) {
+        this.patientId = patientId;
+        this.deletedAt = deletedAt;
+    }
+    
+    // Getters and Setters
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+    
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+}
@@ -1,14 +1,26 @@
 package com.medicare.hospital.repository;
 
+import com.medicare.hospital.dto.PatientSummary;
 import com.medicare.hospital.model.Patient;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * Repository interface for Patient entity
@@ -28,6 +40,166 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
      */
     Optional<Patient> findByEmail(String email);
     
+    /**
+     * Find which of the given emails are already registered
+     * 
+     * @param emails Emails to check
+     * @return Registered emails among those given
+     */
+    @Query("SELECT p.email FROM Patient p WHERE p.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
+    /**
+     * Find the next batch of patients after a given ID, in ID order
+     * 
+     * Used to walk the whole table in bounded batches without OFFSET.
+     * 
+     * @param id Last ID already read (exclusive)
+     * @param pageable Batch size
+     * @return Next batch of patients
+     */
+    List<Patient> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    /**
+     * Find a page of patient summaries, without the TEXT columns
+     * 
+     * @param pageable Pagination information
+     * @return Page of patient summaries
+     */
+    @Query(value = PatientSummary.SELECT + "FROM Patient p",
+           countQuery = "SELECT COUNT(p) FROM Patient p")
+    Page<PatientSummary> findAllSummaries(Pageable pageable);
+    
+    /**
+     * Find patient summaries by ID
+     * 
+     * @param ids Patient IDs
+     * @return Summaries of the patients that exist, in no particular order
+     */
+    @Query(PatientSummary.SELECT + "FROM Patient p WHERE p.id IN :ids")
+    List<PatientSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Find the first slice of patient summaries in the order given by the
+     * pageable's sort, without issuing a count query
+     * 
+     * @param pageable Slice size and sort
+     * @return First slice of patient summaries
+     */
+    @Query(PatientSummary.SELECT + "FROM Patient p")
+    List<PatientSummary> findFirstSlice(Pageable pageable);
+    
+    /**
+     * Find the next slice of patient summaries after an ID
+     * 
+     * @param id ID of the last patient already read
+     * @param pageable Slice size
+     * @return Next slice of patient summaries ordered by ID
+     */
+    @Query(PatientSummary.SELECT + "FROM Patient p WHERE p.id > :id ORDER BY p.id")
+    List<PatientSummary> findSliceAfterId(@Param("id") Long id, Pageable pageable);
+    
+    /**
+     * Find the next slice of patient summaries after a (last name, ID) position
+     * 
+     * @param lastName Last name of the last patient already read
+     * @param id ID of the last patient already read
+     * @param pageable Slice size
+     * @return Next slice of patient summaries ordered by last name, then ID
+     */
+    @Query(PatientSummary.SELECT + "FROM Patient p " +
+           "WHERE p.lastName > :lastName OR (p.lastName = :lastName AND p.id > :id) " +
+           "ORDER BY p.lastName, p.id")
+    List<PatientSummary> findSliceAfterLastName(@Param("lastName") String lastName, @Param("id") Long id,
+                                                Pageable pageable);
+    
+    /**
+     * Find the next slice of patient summaries after a (creation time, ID) position
+     * 
+     * Rows without a creation time sort first (as NULLs do in ascending
+     * order), so they are never part of a slice after a non-null time.
+     * 
+     * @param createdAt Creation time of the last patient already read
+     * @param id ID of the last patient already read
+     * @param pageable Slice size
+     * @return Next slice of patient summaries ordered by creation time, then ID
+     */
+    @Query(PatientSummary.SELECT + "FROM Patient p " +
+           "WHERE p.createdAt > :createdAt OR (p.createdAt = :createdAt AND p.id > :id) " +
+           "ORDER BY p.createdAt, p.id")
+    List<PatientSummary> findSliceAfterCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                 Pageable pageable);
+    
+    /**
+     * Find the next slice of patient summaries after a patient without a
+     * creation time (rows inserted outside the application)
+     * 
+     * @param id ID of the last patient already read
+     * @param pageable Slice size
+     * @return Remaining patients without a creation time by ID, then all others
+     *         ordered by creation time, then ID
+     */
+    @Query(PatientSummary.SELECT + "FROM Patient p " +
+           "WHERE (p.createdAt IS NULL AND p.id > :id) OR p.createdAt IS NOT NULL " +
+           "ORDER BY p.createdAt, p.id")
+    List<PatientSummary> findSliceAfterMissingCreatedAt(@Param("id") Long id, Pageable pageable);
+    
+    /**
+     * Find the version of a patient without loading the entity
+     * 
+     * @param id Patient ID
+     * @return Optional containing the version if the patient exists
+     */
+    @Query("SELECT p.version FROM Patient p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+    
+    /**
+     * Find patients created or updated after an (updatedAt, id) position
+     * 
+     * Seeks on the (updated_at, id) index; used by the change feed.
+     * 
+     * @param updatedAt Update time of the last change already seen
+     * @param id ID of the last change already seen
+     * @param until Exclusive upper bound on update time
+     * @param pageable Slice size
+     * @return Next changed patients ordered by update time, then ID
+     */
+    @Query("SELECT p FROM Patient p " +
+           "WHERE (p.updatedAt > :updatedAt OR (p.updatedAt = :updatedAt AND p.id > :id)) " +
+           "AND p.updatedAt < :until " +
+           "ORDER BY p.updatedAt, p.id")
+    List<Patient> findChangedAfter(@Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id,
+                                   @Param("until") LocalDateTime until, Pageable pageable);
+    
+    /**
+     * Stream all patients in ID order with a forward-only cursor
+     * 
+     * Rows are fetched from the driver in blocks of the JDBC fetch size
+     * (MySQL needs useCursorFetch=true for this), and entities are read-only.
+     * Must be consumed inside a transaction and closed afterwards.
+     * 
+     * @return Stream of all patients
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Patient p ORDER BY p.id")
+    Stream<Patient> streamAll();
+    
+    /**
+     * Stream the summaries of all patients in ID order with a forward-only cursor
+     * 
+     * Like streamAll(), but without the large TEXT columns and without
+     * managed entities. Must be consumed inside a transaction and closed
+     * afterwards.
+     * 
+     * @return Stream of all patient summaries
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(PatientSummary.SELECT + "FROM Patient p ORDER BY p.id")
+    Stream<PatientSummary> streamAllSummaries();
+    
     /**
      * Find patients by first name (case insensitive)
      * 
@@ -52,6 +224,15 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
      */
     List<Patient> findByGender(Patient.Gender gender);
     
+    /**
+     * Find patient summaries by gender
+     * 
+     * @param gender Patient gender
+     * @return Summaries of patients with the specified gender
+     */
+    @Query(PatientSummary.SELECT + "FROM Patient p WHERE p.gender = :gender")
+    List<PatientSummary> findSummariesByGender(@Param("gender") Patient.Gender gender);
+    
     /**
      * Count patients by gender
      * 
@@ -60,6 +241,22 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
      */
     long countByGender(Patient.Gender gender);
     
+    /**
+     * Count patients grouped by gender
+     * 
+     * @return Rows of [gender, count]
+     */
+    @Query("SELECT p.gender, COUNT(p) FROM Patient p GROUP BY p.gender")
+    List<Object[]> countGroupByGender();
+    
+    /**
+     * Count patients grouped by date of birth
+     * 
+     * @return Rows of [date of birth, count], for patients with a date of birth
+     */
+    @Query("SELECT p.dateOfBirth, COUNT(p) FROM Patient p WHERE p.dateOfBirth IS NOT NULL GROUP BY p.dateOfBirth")
+    List<Object[]> countGroupByDateOfBirth();
+    
     /**
      * Find patients by date of birth range
      * 
@@ -70,12 +267,21 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     List<Patient> findByDateOfBirthBetween(LocalDate startDate, LocalDate endDate);
     
     /**
-     * Find patients by insurance provider (case insensitive, partial match)
+     * Find every distinct insurance provider name as entered
      * 
-     * @param insurance Insurance provider name
-     * @return List of patients with matching insurance
+     * @return Provider names, blank ones included
      */
-    List<Patient> findByInsuranceContainingIgnoreCase(String insurance);
+    @Query("SELECT DISTINCT p.insurance FROM Patient p WHERE p.insurance IS NOT NULL")
+    List<String> findInsuranceNames();
+    
+    /**
+     * Find summaries of the patients with one of the given insurance names
+     * 
+     * @param names Insurance provider names, exactly as stored
+     * @return Summaries of matching patients, ordered by ID
+     */
+    @Query(PatientSummary.SELECT + "FROM Patient p WHERE p.insurance IN :names ORDER BY p.id")
+    List<PatientSummary> findSummariesByInsuranceIn(@Param("names") Collection<String> names);
     
     /**
      * Search patients by name or email (case insensitive, partial match)
@@ -117,29 +323,33 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     List<Patient> findPatientsWithCondition(@Param("condition") String condition);
     
     /**
-     * Get patient count by age group
+     * Count patients born on or before a date (i.e. at least a given age)
+     * 
+     * @param date Latest date of birth (inclusive)
+     * @return Number of patients born on or before the date
+     */
+    long countByDateOfBirthLessThanEqual(LocalDate date);
+    
+    /**
+     * Count patients with a date of birth
+     * 
+     * @return Number of patients whose date of birth is set
+     */
+    long countByDateOfBirthNotNull();
+    
+    /**
+     * Find patients whose birthday falls within a (month, day) range
      * 
-     * @return List of age group statistics
+     * Birthdays are encoded as month * 100 + day, e.g. 1231 for December 31.
+     * 
+     * @param start First birthday key (inclusive)
+     * @param end Last birthday key (inclusive)
+     * @return List of patients ordered by birthday
      */
-    @Query("SELECT " +
-           "CASE " +
-           "  WHEN YEAR(CURRENT_DATE) - YEAR(p.dateOfBirth) < 18 THEN 'Under 18' " +
-           "  WHEN YEAR(CURRENT_DATE) - YEAR(p.dateOfBirth) BETWEEN 18 AND 30 THEN '18-30' " +
-           "  WHEN YEAR(CURRENT_DATE) - YEAR(p.dateOfBirth) BETWEEN 31 AND 50 THEN '31-50' " +
-           "  WHEN YEAR(CURRENT_DATE) - YEAR(p.dateOfBirth) BETWEEN 51 AND 70 THEN '51-70' " +
-           "  ELSE 'Over 70' " +
-           "END as ageGroup, " +
-           "COUNT(p) as count " +
-           "FROM Patient p " +
-           "GROUP BY " +
-           "CASE " +
-           "  WHEN YEAR(CURRENT_DATE) - YEAR(p.dateOfBirth) < 18 THEN 'Under 18' " +
-           "  WHEN YEAR(CURRENT_DATE) - YEAR(p.dateOfBirth) BETWEEN 18 AND 30 THEN '18-30' " +
-           "  WHEN YEAR(CURRENT_DATE) - YEAR(p.dateOfBirth) BETWEEN 31 AND 50 THEN '31-50' " +
-           "  WHEN YEAR(CURRENT_DATE) - YEAR(p.dateOfBirth) BETWEEN 51 AND 70 THEN '51-70' " +
-           "  ELSE 'Over 70' " +
-           "END")
-    List<Object[]> getPatientCountByAgeGroup();
+    @Query("SELECT p FROM Patient p " +
+           "WHERE MONTH(p.dateOfBirth) * 100 + DAY(p.dateOfBirth) BETWEEN :start AND :end " +
+           "ORDER BY MONTH(p.dateOfBirth), DAY(p.dateOfBirth)")
+    List<Patient> findByBirthdayBetween(@Param("start") int start, @Param("end") int end);
     
     /**
      * Find patients without insurance
@@ -168,8 +378,49 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     /**
      * Check if phone number exists (for validation)
      * 
+     * Compares normalized digits through the reversed-digits index, so
+     * differently formatted spellings of the same number match.
+     * 
      * @param phone Phone number to check
-     * @return true if phone exists, false otherwise
+     * @return true if phone exists, false otherwise (always false for null
+     *         and for numbers without digits)
+     */
+    @Query("SELECT COUNT(p) > 0 FROM Patient p " +
+           "WHERE p.phoneReversed = :#{T(com.medicare.hospital.model.Patient).phoneLookupKey(#phone)}")
+    boolean existsByPhone(@Param("phone") String phone);
+    
+    /**
+     * Find patient summaries whose phone number ends with the given digits
+     * 
+     * @param reversedDigits Trailing digits of the number, reversed
+     * @return Summaries of matching patients
+     */
+    @Query(PatientSummary.SELECT + "FROM Patient p WHERE p.phoneReversed LIKE :reversedDigits%")
+    List<PatientSummary> findSummariesByPhoneReversedStartingWith(@Param("reversedDigits") String reversedDigits);
+    
+    /**
+     * Find the phone numbers of the next batch of patients after a given ID
+     * whose reversed phone digits are not yet populated, in ID order
+     * 
+     * @param id Last ID already read (exclusive)
+     * @param pageable Batch size
+     * @return Rows of [id, phone number]
+     */
+    @Query("SELECT p.id, p.phone FROM Patient p " +
+           "WHERE p.id > :id AND p.phoneReversed IS NULL AND p.phone IS NOT NULL ORDER BY p.id")
+    List<Object[]> findPhonesWithoutReversedDigitsAfter(@Param("id") Long id, Pageable pageable);
+    
+    /**
+     * Set the reversed phone digits of a patient
+     * 
+     * A bulk update, so neither the version nor updatedAt changes: the
+     * column is derived data and the patient itself is not modified.
+     * 
+     * @param id Patient ID
+     * @param phoneReversed Reversed digits of the patient's phone number
+     * @return Number of patients updated
      */
-    boolean existsByPhone(String phone);
+    @Modifying
+    @Query("UPDATE Patient p SET p.phoneReversed = :phoneReversed WHERE p.id = :id AND p.phoneReversed IS NULL")
+    int setPhoneReversed(@Param("id") Long id, @Param("phoneReversed") String phoneReversed);
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.medicare.hospital.repository;
+
+import com.medicare.hospital.model.PatientTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for PatientTombstone entity
+ */
+@Repository
+public interface PatientTombstoneRepository extends JpaRepository<PatientTombstone, Long> {
+    
+    /**
+     * Find deletions after a (deletedAt, patientId) position, in deletion order
+     * 
+     * @param deletedAt Deletion time of the last deletion already seen
+     * @param patientId Patient ID of the last deletion already seen
+     * @param until Exclusive upper bound on deletion time
+     * @param pageable Slice size
+     * @return Next deletions ordered by deletion time, then patient ID
+     */
+    @Query("SELECT t FROM PatientTombstone t " +
+           "WHERE (t.deletedAt > :deletedAt OR (t.deletedAt = :deletedAt AND t.patientId > :patientId)) " +
+           "AND t.deletedAt < :until " +
+           "ORDER BY t.deletedAt, t.patientId")
+    List<PatientTombstone> findDeletedAfter(@Param("deletedAt") LocalDateTime deletedAt,
+                                            @Param("patientId") Long patientId,
+                                            @Param("until") LocalDateTime until,
+                                            Pageable pageable);
+    
+    /**
+     * Delete tombstones older than the given time
+     * 
+     * @param cutoff Tombstones deleted before this time are removed
+     * @return Number of tombstones removed
+     */
+    @Modifying
+    @Query("DELETE FROM PatientTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteByDeletedAtBefore(@Param("cutoff") LocalDateTime cutoff);
+}
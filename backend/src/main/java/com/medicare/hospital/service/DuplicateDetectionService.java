@@ -0,0 +1,698 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.dto.DeduplicationJob;
+import com.medicare.hospital.dto.DuplicateCandidate;
+import com.medicare.hospital.dto.PatientSummary;
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Batch detection of patients registered more than once
+ * 
+ * Comparing every pair of patients is quadratic, so patients are first
+ * grouped into blocks by three blocking keys: the Soundex code of the last
+ * name together with the date of birth; the Soundex codes of first and last
+ * name as an unordered pair, together with the date of birth; and the last
+ * seven digits of the phone number. Only pairs within a block are compared,
+ * which finds the same person under another email, with a misspelled name
+ * or with first and last name swapped, at a cost close to linear in the
+ * number of patients. A pair sharing several keys is compared once.
+ * Blocks larger than app.dedup.max-block-size (a shared clinic phone
+ * number, say) are skipped and counted.
+ * 
+ * Blocking keys are packed into longs together with the record index and
+ * sorted, so blocks are runs of equal keys in one array and no per-record
+ * objects are needed. Blocks are compared in parallel on a fork-join pool;
+ * each pair is scored by weighted field similarity and kept as a merge
+ * candidate if it reaches app.dedup.min-score.
+ * 
+ * One job runs at a time, in the background; the results of the last
+ * completed job are kept until the next one completes.
+ */
+@Service
+public class DuplicateDetectionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateDetectionService.class);
+    
+    // Field weights; fields missing on either patient are left out of the score
+    private static final double FIRST_NAME_WEIGHT = 0.25;
+    private static final double LAST_NAME_WEIGHT = 0.25;
+    private static final double BIRTH_DATE_WEIGHT = 0.2;
+    private static final double PHONE_WEIGHT = 0.15;
+    private static final double EMAIL_WEIGHT = 0.15;
+    private static final double MATCH_THRESHOLD = 0.9;
+    
+    // Block entry layout: blocking key in the high bits, record index in the low INDEX_BITS
+    private static final int INDEX_BITS = 26;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final int MAX_RECORDS = 1 << INDEX_BITS;
+    // Name keys are a Soundex code (or a code for the pair of them) and birth day
+    // (offset so that 1880-2239 is non-negative). The key kind sits above the
+    // payload, so keys of different kinds never match.
+    private static final int BIRTH_DAY_BITS = 17;
+    private static final int BIRTH_DAY_OFFSET = 1 << 15;
+    private static final int KIND_SHIFT = 35;
+    private static final long KIND_MASK = 3L << KIND_SHIFT;
+    private static final long NAME_PAIR_KEY = 1L << KIND_SHIFT;
+    private static final long PHONE_KEY = 2L << KIND_SHIFT;
+    // Unordered Soundex pairs are hashed into this many codes (the largest prime
+    // below 2^18); a collision only merges two blocks
+    private static final int NAME_PAIR_CODES = 262_139;
+    private static final int PHONE_SUFFIX_DIGITS = 7;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final long NO_KEY = -1;
+    
+    // Pairs compared by one fork-join leaf
+    private static final long LEAF_PAIRS = 50_000;
+    private static final int LOAD_CHECK_INTERVAL = 10_000;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.dedup.min-score:0.85}")
+    private double minScore;
+    
+    @Value("${app.dedup.max-block-size:1000}")
+    private int maxBlockSize;
+    
+    @Value("${app.dedup.max-candidates:100000}")
+    private int maxCandidates;
+    
+    @Value("${app.dedup.parallelism:0}")
+    private int parallelism;
+    
+    @Value("${app.pagination.max-page-size:100}")
+    private int maxPageSize;
+    
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "duplicate-detection");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong jobIds = new AtomicLong();
+    private volatile Run current;
+    private volatile Run lastCompleted;
+    
+    /**
+     * Start a duplicate detection job in the background
+     * 
+     * @return Status of the new job
+     * @throws IllegalStateException if a job is already running
+     */
+    public synchronized DeduplicationJob start() {
+        if (current != null && current.isRunning()) {
+            throw new IllegalStateException("Duplicate detection job " + current.id + " is already running");
+        }
+        Run run = new Run(jobIds.incrementAndGet(), minScore);
+        current = run;
+        jobExecutor.execute(() -> execute(run));
+        return run.toStatus();
+    }
+    
+    /**
+     * Get the status of the current or most recent job
+     * 
+     * @return Job status, or null if no job has been started
+     */
+    public DeduplicationJob getStatus() {
+        Run run = current;
+        return run == null ? null : run.toStatus();
+    }
+    
+    /**
+     * Ask the running job to stop; the previous results are kept
+     * 
+     * @return Status of the job being cancelled
+     * @throws IllegalStateException if no job is running
+     */
+    public DeduplicationJob cancel() {
+        Run run = current;
+        if (run == null || !run.isRunning()) {
+            throw new IllegalStateException("No duplicate detection job is running");
+        }
+        run.cancelled = true;
+        return run.toStatus();
+    }
+    
+    /**
+     * Get merge candidates found by the last completed job
+     * 
+     * @param minScore Only candidates scoring at least this
+     * @param pageable Page of candidates to return (size capped at the max page size)
+     * @return Candidates, highest score first, with current patient summaries
+     * @throws IllegalStateException if no job has completed yet
+     */
+    public Page<DuplicateCandidate> findCandidates(double minScore, Pageable pageable) {
+        Pageable page = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), maxPageSize));
+        Run run = lastCompleted;
+        if (run == null) {
+            throw new IllegalStateException("No duplicate detection job has completed");
+        }
+        // Sorted by descending score, so the qualifying candidates are a prefix
+        List<Candidate> results = run.results;
+        int qualifying = 0;
+        while (qualifying < results.size() && results.get(qualifying).score >= minScore) {
+            qualifying++;
+        }
+        int from = (int) Math.min(page.getOffset(), qualifying);
+        int to = Math.min(from + page.getPageSize(), qualifying);
+        List<Candidate> pageResults = results.subList(from, to);
+        
+        Set<Long> ids = new HashSet<>();
+        pageResults.forEach(candidate -> {
+            ids.add(candidate.patientId);
+            ids.add(candidate.duplicateId);
+        });
+        Map<Long, PatientSummary> summaries = ids.isEmpty() ? Collections.emptyMap()
+            : patientRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(PatientSummary::getId, Function.identity()));
+        List<DuplicateCandidate> content = new ArrayList<>(pageResults.size());
+        for (Candidate candidate : pageResults) {
+            DuplicateCandidate dto = new DuplicateCandidate(candidate.patientId, candidate.duplicateId,
+                candidate.score, candidate.matchedFields());
+            dto.setPatient(summaries.get(candidate.patientId));
+            dto.setDuplicate(summaries.get(candidate.duplicateId));
+            content.add(dto);
+        }
+        return new PageImpl<>(content, page, qualifying);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        Run run = current;
+        if (run != null) {
+            run.cancelled = true;
+        }
+        jobExecutor.shutdownNow();
+    }
+    
+    // Helper methods
+    private void execute(Run run) {
+        long started = System.nanoTime();
+        try {
+            Records records = load(run);
+            logger.info("Duplicate detection job {}: loaded {} patients", run.id, records.size);
+            
+            run.state = DeduplicationJob.State.BLOCKING;
+            Blocks blocks = block(records, run);
+            logger.info("Duplicate detection job {}: {} blocks, {} pairs to compare, {} oversized blocks skipped",
+                run.id, blocks.count, run.totalComparisons, run.oversizedBlocks);
+            
+            run.state = DeduplicationJob.State.COMPARING;
+            List<Candidate> candidates = compare(records, blocks, run);
+            candidates.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed()
+                .thenComparingLong(c -> c.patientId)
+                .thenComparingLong(c -> c.duplicateId));
+            run.candidates = candidates.size();
+            run.results = candidates.size() > maxCandidates
+                ? new ArrayList<>(candidates.subList(0, maxCandidates))
+                : candidates;
+            
+            run.finishedAt = LocalDateTime.now();
+            run.state = DeduplicationJob.State.COMPLETED;
+            lastCompleted = run;
+            logger.info("Duplicate detection job {}: {} merge candidates in {} ms", run.id, run.candidates,
+                (System.nanoTime() - started) / 1_000_000);
+        } catch (CancellationException e) {
+            run.finishedAt = LocalDateTime.now();
+            run.state = DeduplicationJob.State.CANCELLED;
+            logger.info("Duplicate detection job {} cancelled", run.id);
+        } catch (Exception | OutOfMemoryError e) {
+            run.error = e.getMessage();
+            run.finishedAt = LocalDateTime.now();
+            run.state = DeduplicationJob.State.FAILED;
+            logger.error("Duplicate detection job {} failed", run.id, e);
+        }
+    }
+    
+    /**
+     * Read the fields compared by the job for every patient, normalized
+     */
+    private Records load(Run run) {
+        long total = patientRepository.count();
+        if (total > MAX_RECORDS) {
+            throw new IllegalStateException("Duplicate detection supports at most " + MAX_RECORDS + " patients");
+        }
+        run.totalPatients = total;
+        Records records = new Records((int) total);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<PatientSummary> patients = patientRepository.streamAllSummaries()) {
+                patients.forEach(patient -> {
+                    if (records.size >= MAX_RECORDS) {
+                        throw new IllegalStateException("Duplicate detection supports at most " + MAX_RECORDS + " patients");
+                    }
+                    records.add(patient);
+                    run.patients = records.size;
+                    if (records.size % LOAD_CHECK_INTERVAL == 0) {
+                        run.checkCancelled();
+                    }
+                });
+            }
+        });
+        return records;
+    }
+    
+    /**
+     * Sort the records by blocking key and find the runs of equal keys
+     */
+    private Blocks block(Records records, Run run) {
+        long[] entries = new long[records.size * 3];
+        int count = 0;
+        for (int i = 0; i < records.size; i++) {
+            if (records.nameKeys[i] != NO_KEY) {
+                entries[count++] = records.nameKeys[i] << INDEX_BITS | i;
+            }
+            if (records.namePairKeys[i] != NO_KEY) {
+                entries[count++] = records.namePairKeys[i] << INDEX_BITS | i;
+            }
+            if (records.phoneSuffixes[i] >= 0) {
+                entries[count++] = (PHONE_KEY | records.phoneSuffixes[i]) << INDEX_BITS | i;
+            }
+        }
+        Arrays.parallelSort(entries, 0, count);
+        run.checkCancelled();
+        
+        Blocks blocks = new Blocks(entries);
+        for (int start = 0; start < count; ) {
+            long key = entries[start] >>> INDEX_BITS;
+            int end = start + 1;
+            while (end < count && entries[end] >>> INDEX_BITS == key) {
+                end++;
+            }
+            int size = end - start;
+            if (size > maxBlockSize) {
+                blocks.oversizedKeys.add(key);
+                run.oversizedBlocks++;
+            } else if (size > 1) {
+                blocks.add(start, end);
+            }
+            start = end;
+        }
+        run.blocks = blocks.count;
+        run.totalComparisons = blocks.count == 0 ? 0 : blocks.pairsBefore[blocks.count];
+        return blocks;
+    }
+    
+    private List<Candidate> compare(Records records, Blocks blocks, Run run) {
+        if (blocks.count == 0) {
+            return new ArrayList<>();
+        }
+        ForkJoinPool pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+        try {
+            return pool.invoke(new CompareTask(records, blocks, run, 0, blocks.count));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * Score a pair of records by weighted field similarity
+     * 
+     * @return Candidate if the score reaches the threshold, otherwise null
+     */
+    private static Candidate score(Records records, int a, int b, double minScore) {
+        String firstA = records.firstNames[a];
+        String firstB = records.firstNames[b];
+        String lastA = records.lastNames[a];
+        String lastB = records.lastNames[b];
+        double first = PatientSimilarity.jaroWinkler(firstA, firstB);
+        double last = PatientSimilarity.jaroWinkler(lastA, lastB);
+        // First and last name entered the wrong way round
+        double swappedFirst = PatientSimilarity.jaroWinkler(firstA, lastB);
+        double swappedLast = PatientSimilarity.jaroWinkler(lastA, firstB);
+        if (swappedFirst + swappedLast > first + last) {
+            first = swappedFirst;
+            last = swappedLast;
+        }
+        
+        double weighted = FIRST_NAME_WEIGHT * first + LAST_NAME_WEIGHT * last;
+        double weights = FIRST_NAME_WEIGHT + LAST_NAME_WEIGHT;
+        int matched = (first >= MATCH_THRESHOLD ? bit(DuplicateCandidate.Field.FIRST_NAME) : 0)
+            | (last >= MATCH_THRESHOLD ? bit(DuplicateCandidate.Field.LAST_NAME) : 0);
+        if (records.birthDays[a] != NO_DATE && records.birthDays[b] != NO_DATE) {
+            double birthDate = PatientSimilarity.birthDateSimilarity(
+                LocalDate.ofEpochDay(records.birthDays[a]), LocalDate.ofEpochDay(records.birthDays[b]));
+            weighted += BIRTH_DATE_WEIGHT * birthDate;
+            weights += BIRTH_DATE_WEIGHT;
+            matched |= birthDate >= MATCH_THRESHOLD ? bit(DuplicateCandidate.Field.DATE_OF_BIRTH) : 0;
+        }
+        if (records.phoneSuffixes[a] >= 0 && records.phoneSuffixes[b] >= 0) {
+            boolean samePhone = records.phoneSuffixes[a] == records.phoneSuffixes[b];
+            weighted += samePhone ? PHONE_WEIGHT : 0;
+            weights += PHONE_WEIGHT;
+            matched |= samePhone ? bit(DuplicateCandidate.Field.PHONE) : 0;
+        }
+        if (!records.emails[a].isEmpty() && !records.emails[b].isEmpty()) {
+            double email = PatientSimilarity.jaroWinkler(records.emails[a], records.emails[b]);
+            weighted += EMAIL_WEIGHT * email;
+            weights += EMAIL_WEIGHT;
+            matched |= email >= MATCH_THRESHOLD ? bit(DuplicateCandidate.Field.EMAIL) : 0;
+        }
+        
+        double score = weighted / weights;
+        if (score < minScore) {
+            return null;
+        }
+        long idA = records.ids[a];
+        long idB = records.ids[b];
+        return new Candidate(Math.min(idA, idB), Math.max(idA, idB), score, matched);
+    }
+    
+    private static int bit(DuplicateCandidate.Field field) {
+        return 1 << field.ordinal();
+    }
+    
+    /**
+     * Name blocking key, or NO_KEY without a last name or a date of birth
+     */
+    private static long nameKey(String lastName, int birthDay) {
+        int soundex = PatientSimilarity.soundex(lastName);
+        long day = (long) birthDay + BIRTH_DAY_OFFSET;
+        if (soundex < 0 || birthDay == NO_DATE || day < 0 || day >= 1L << BIRTH_DAY_BITS) {
+            return NO_KEY;
+        }
+        return (long) soundex << BIRTH_DAY_BITS | day;
+    }
+    
+    /**
+     * Blocking key of the unordered pair of first and last name Soundex
+     * codes, so "John Smith" and "Smith John" born the same day share it;
+     * NO_KEY without both names or a date of birth
+     */
+    private static long namePairKey(String firstName, String lastName, int birthDay) {
+        int first = PatientSimilarity.soundex(firstName);
+        int last = PatientSimilarity.soundex(lastName);
+        long day = (long) birthDay + BIRTH_DAY_OFFSET;
+        if (first < 0 || last < 0 || birthDay == NO_DATE || day < 0 || day >= 1L << BIRTH_DAY_BITS) {
+            return NO_KEY;
+        }
+        long pair = (long) Math.min(first, last) << 16 | Math.max(first, last);
+        return NAME_PAIR_KEY | pair % NAME_PAIR_CODES << BIRTH_DAY_BITS | day;
+    }
+    
+    /**
+     * Last digits of a phone number as an int, or -1 if it has too few digits
+     */
+    private static int phoneSuffix(String phone) {
+        if (phone == null) {
+            return -1;
+        }
+        String reversed = Patient.reverseDigits(phone);
+        if (reversed.length() < PHONE_SUFFIX_DIGITS) {
+            return -1;
+        }
+        int suffix = 0;
+        for (int i = PHONE_SUFFIX_DIGITS - 1; i >= 0; i--) {
+            suffix = suffix * 10 + (reversed.charAt(i) - '0');
+        }
+        return suffix;
+    }
+    
+    // Live state of one job, read by status requests while it runs
+    private static final class Run {
+        private final long id;
+        private final double minScore;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong comparisons = new AtomicLong();
+        private volatile DeduplicationJob.State state = DeduplicationJob.State.LOADING;
+        private volatile boolean cancelled;
+        private volatile long totalPatients;
+        private volatile long patients;
+        private volatile long blocks;
+        private volatile long oversizedBlocks;
+        private volatile long totalComparisons;
+        private volatile long candidates;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        private volatile List<Candidate> results = Collections.emptyList();
+        
+        private Run(long id, double minScore) {
+            this.id = id;
+            this.minScore = minScore;
+        }
+        
+        private boolean isRunning() {
+            return state == DeduplicationJob.State.LOADING
+                || state == DeduplicationJob.State.BLOCKING
+                || state == DeduplicationJob.State.COMPARING;
+        }
+        
+        private void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+        }
+        
+        private DeduplicationJob toStatus() {
+            DeduplicationJob status = new DeduplicationJob();
+            status.setId(id);
+            status.setState(state);
+            status.setPatients(patients);
+            status.setBlocks(blocks);
+            status.setOversizedBlocks(oversizedBlocks);
+            status.setComparisons(comparisons.get());
+            status.setTotalComparisons(totalComparisons);
+            status.setCandidates(candidates);
+            status.setMinScore(minScore);
+            status.setStartedAt(startedAt);
+            status.setFinishedAt(finishedAt);
+            status.setError(error);
+            switch (status.getState()) {
+                case LOADING:
+                    status.setProgress(totalPatients == 0 ? 0 : Math.min(1, patients / (double) totalPatients));
+                    break;
+                case COMPARING:
+                    status.setProgress(totalComparisons == 0 ? 1 : comparisons.get() / (double) totalComparisons);
+                    break;
+                case COMPLETED:
+                    status.setProgress(1);
+                    break;
+                default:
+                    status.setProgress(0);
+            }
+            return status;
+        }
+    }
+    
+    // Normalized compared fields, one array slot per patient
+    private static final class Records {
+        private long[] ids;
+        private String[] firstNames;
+        private String[] lastNames;
+        private String[] emails;
+        private int[] birthDays;
+        private int[] phoneSuffixes;
+        private long[] nameKeys;
+        private long[] namePairKeys;
+        private int size;
+        // Shares the many repeated names between records
+        private final Map<String, String> names = new HashMap<>();
+        
+        private Records(int capacity) {
+            ids = new long[capacity];
+            firstNames = new String[capacity];
+            lastNames = new String[capacity];
+            emails = new String[capacity];
+            birthDays = new int[capacity];
+            phoneSuffixes = new int[capacity];
+            nameKeys = new long[capacity];
+            namePairKeys = new long[capacity];
+        }
+        
+        private void add(PatientSummary patient) {
+            // Patients added while loading
+            if (size == ids.length) {
+                int capacity = Math.max(16, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                firstNames = Arrays.copyOf(firstNames, capacity);
+                lastNames = Arrays.copyOf(lastNames, capacity);
+                emails = Arrays.copyOf(emails, capacity);
+                birthDays = Arrays.copyOf(birthDays, capacity);
+                phoneSuffixes = Arrays.copyOf(phoneSuffixes, capacity);
+                nameKeys = Arrays.copyOf(nameKeys, capacity);
+                namePairKeys = Arrays.copyOf(namePairKeys, capacity);
+            }
+            int i = size++;
+            ids[i] = patient.getId();
+            firstNames[i] = share(PatientSimilarity.normalizeName(patient.getFirstName()));
+            lastNames[i] = share(PatientSimilarity.normalizeName(patient.getLastName()));
+            emails[i] = PatientSimilarity.emailLetters(patient.getEmail());
+            birthDays[i] = patient.getDateOfBirth() == null ? NO_DATE : (int) patient.getDateOfBirth().toEpochDay();
+            phoneSuffixes[i] = phoneSuffix(patient.getPhone());
+            nameKeys[i] = nameKey(lastNames[i], birthDays[i]);
+            namePairKeys[i] = namePairKey(firstNames[i], lastNames[i], birthDays[i]);
+        }
+        
+        private String share(String name) {
+            return names.computeIfAbsent(name, Function.identity());
+        }
+    }
+    
+    // Blocks as [start, end) ranges of the sorted entries, with a running pair count
+    private static final class Blocks {
+        private final long[] entries;
+        private final Set<Long> oversizedKeys = new HashSet<>();
+        private int[] starts = new int[1024];
+        private int[] ends = new int[1024];
+        private long[] pairsBefore = new long[1025];
+        private int count;
+        
+        private Blocks(long[] entries) {
+            this.entries = entries;
+        }
+        
+        private void add(int start, int end) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                pairsBefore = Arrays.copyOf(pairsBefore, count * 2 + 1);
+            }
+            long size = end - start;
+            starts[count] = start;
+            ends[count] = end;
+            pairsBefore[count + 1] = pairsBefore[count] + size * (size - 1) / 2;
+            count++;
+        }
+        
+        private long pairs(int from, int to) {
+            return pairsBefore[to] - pairsBefore[from];
+        }
+    }
+    
+    private static final class CompareTask extends RecursiveTask<List<Candidate>> {
+        private final Records records;
+        private final Blocks blocks;
+        private final Run run;
+        private final int from;
+        private final int to;
+        
+        private CompareTask(Records records, Blocks blocks, Run run, int from, int to) {
+            this.records = records;
+            this.blocks = blocks;
+            this.run = run;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected List<Candidate> compute() {
+            if (to - from > 1 && blocks.pairs(from, to) > LEAF_PAIRS) {
+                // Split where half of the pairs are on either side
+                long half = blocks.pairsBefore[from] + blocks.pairs(from, to) / 2;
+                int middle = Arrays.binarySearch(blocks.pairsBefore, from + 1, to, half);
+                middle = Math.min(Math.max(middle < 0 ? -middle - 1 : middle, from + 1), to - 1);
+                CompareTask left = new CompareTask(records, blocks, run, from, middle);
+                left.fork();
+                List<Candidate> candidates = new CompareTask(records, blocks, run, middle, to).compute();
+                candidates.addAll(left.join());
+                return candidates;
+            }
+            List<Candidate> candidates = new ArrayList<>();
+            for (int block = from; block < to; block++) {
+                run.checkCancelled();
+                compareBlock(block, candidates);
+                run.comparisons.addAndGet(blocks.pairs(block, block + 1));
+            }
+            return candidates;
+        }
+        
+        private void compareBlock(int block, List<Candidate> candidates) {
+            long[] entries = blocks.entries;
+            int start = blocks.starts[block];
+            int end = blocks.ends[block];
+            long kind = entries[start] >>> INDEX_BITS & KIND_MASK;
+            for (int i = start; i < end; i++) {
+                int a = (int) (entries[i] & INDEX_MASK);
+                for (int j = i + 1; j < end; j++) {
+                    int b = (int) (entries[j] & INDEX_MASK);
+                    if (comparedInEarlierBlock(kind, a, b)) {
+                        continue;
+                    }
+                    Candidate candidate = score(records, a, b, run.minScore);
+                    if (candidate != null) {
+                        candidates.add(candidate);
+                    }
+                }
+            }
+        }
+        
+        // A pair sharing several keys is compared in the block of the first one
+        // (last name, name pair, phone), unless that block was skipped
+        private boolean comparedInEarlierBlock(long kind, int a, int b) {
+            if (kind == 0) {
+                return false;
+            }
+            if (sharedBlock(records.nameKeys[a], records.nameKeys[b])) {
+                return true;
+            }
+            return kind == PHONE_KEY && sharedBlock(records.namePairKeys[a], records.namePairKeys[b]);
+        }
+        
+        private boolean sharedBlock(long key, long otherKey) {
+            return key != NO_KEY && key == otherKey && !blocks.oversizedKeys.contains(key);
+        }
+    }
+    
+    // One scored pair, kept compact since a job can find many
+    private static final class Candidate {
+        private final long patientId;
+        private final long duplicateId;
+        private final double score;
+        private final int matched;
+        
+        private Candidate(long patientId, long duplicateId, double score, int matched) {
+            this.patientId = patientId;
+            this.duplicateId = duplicateId;
+            this.score = score;
+            this.matched = matched;
+        }
+        
+        private List<DuplicateCandidate.Field> matchedFields() {
+            List<DuplicateCandidate.Field> fields = new ArrayList<>();
+            for (DuplicateCandidate.Field field : DuplicateCandidate.Field.values()) {
+                if ((matched & bit(field)) != 0) {
+                    fields.add(field);
+                }
+            }
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.index.PatientChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts entries from the "patients" cache once a change has committed
+ * 
+ * PatientService evicts before each write, but a concurrent read could
+ * cache the old row again before the write commits. Evicting once more
+ * after commit closes that window. It also covers writes that bypass
+ * PatientService.save, such as bulk imports. The listener is independent
+ * of the in-memory indexes, so it runs even while they are disabled or
+ * being rebuilt.
+ */
+@Component
+public class PatientCacheInvalidator {
+    
+    public static final String CACHE_NAME = "patients";
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    /**
+     * Evict the changed patient from the cache
+     * 
+     * @param event Patient change event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPatientChanged(PatientChangedEvent event) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.evict(event.getPatientId());
+        }
+    }
+}
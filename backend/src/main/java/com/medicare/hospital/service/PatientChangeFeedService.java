@@ -0,0 +1,192 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.config.ReplicaRoutingDataSource;
+import com.medicare.hospital.dto.CursorPage;
+import com.medicare.hospital.dto.PatientChange;
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.model.PatientTombstone;
+import com.medicare.hospital.repository.PatientRepository;
+import com.medicare.hospital.repository.PatientTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service for the patient change feed
+ * 
+ * Creates and updates are read with a seek on the (updated_at, id) index,
+ * deletions from the tombstone table, and the two are merged in timestamp
+ * order. Changes younger than the settle window are held back: timestamps
+ * are assigned before commit, so a transaction still in flight could
+ * otherwise commit a change behind a cursor a client already holds. The
+ * feed is always read from the primary: a lagging replica would let the
+ * cursor move past changes it has not received yet.
+ */
+@Service
+public class PatientChangeFeedService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PatientChangeFeedService.class);
+    
+    private static final Position START = new Position(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private PatientTombstoneRepository tombstoneRepository;
+    
+    @Value("${app.pagination.max-page-size:100}")
+    private int maxPageSize;
+    
+    @Value("${app.changes.settle-ms:5000}")
+    private long settleMillis;
+    
+    @Value("${app.changes.tombstone-retention-days:30}")
+    private int retentionDays;
+    
+    /**
+     * Find the changes committed after a cursor, oldest first
+     * 
+     * Without a cursor every patient is returned as CREATED, which serves as
+     * the initial sync. The returned nextCursor is always set; clients store
+     * it and pass it back on their next poll. Once a poll has caught up, the
+     * cursor moves to the settle horizon even if nothing changed, so it stays
+     * within the tombstone retention for as long as the client keeps polling.
+     * 
+     * @param since Cursor from the previous call, or null for an initial sync
+     * @param size Maximum number of changes (capped at the max page size)
+     * @return Changes with the cursor to resume from
+     * @throws IllegalArgumentException if the cursor is invalid
+     * @throws CursorExpiredException if the cursor is older than the tombstone retention
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PatientChange> findChanges(String since, int size) {
+        return ReplicaRoutingDataSource.readFromPrimary(() -> readChanges(since, size));
+    }
+    
+    /**
+     * Remove tombstones past the retention period
+     */
+    @Scheduled(cron = "${app.changes.tombstone-purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeTombstones() {
+        int purged = tombstoneRepository.deleteByDeletedAtBefore(LocalDateTime.now().minusDays(retentionDays));
+        logger.info("Purged {} patient tombstones older than {} days", purged, retentionDays);
+    }
+    
+    // Helper methods
+    private CursorPage<PatientChange> readChanges(String since, int size) {
+        int sliceSize = Math.max(1, Math.min(size, maxPageSize));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.minus(settleMillis, ChronoUnit.MILLIS);
+        boolean initialSync = since == null || since.isEmpty();
+        Position from = initialSync ? START : Position.decode(since);
+        if (!initialSync && from.timestamp.isBefore(now.minusDays(retentionDays))) {
+            throw new CursorExpiredException("Cursor is older than " + retentionDays + " days; resync without a cursor");
+        }
+        
+        // Read one extra change to learn whether more follow
+        Pageable limit = PageRequest.of(0, sliceSize + 1);
+        List<Patient> changed = patientRepository.findChangedAfter(from.timestamp, from.id, until, limit);
+        List<PatientTombstone> deleted = initialSync
+            ? Collections.emptyList()
+            : tombstoneRepository.findDeletedAfter(from.timestamp, from.id, until, limit);
+        
+        List<PatientChange> changes = new ArrayList<>(sliceSize);
+        int p = 0;
+        int t = 0;
+        while (changes.size() < sliceSize && (p < changed.size() || t < deleted.size())) {
+            boolean takePatient = t == deleted.size()
+                || (p < changed.size() && compare(changed.get(p), deleted.get(t)) < 0);
+            if (takePatient) {
+                Patient patient = changed.get(p++);
+                PatientChange.Type type = initialSync || from.isBefore(patient.getCreatedAt(), patient.getId())
+                    ? PatientChange.Type.CREATED
+                    : PatientChange.Type.UPDATED;
+                changes.add(new PatientChange(type, patient.getId(), patient.getUpdatedAt(), patient));
+            } else {
+                PatientTombstone tombstone = deleted.get(t++);
+                changes.add(new PatientChange(PatientChange.Type.DELETED, tombstone.getPatientId(),
+                    tombstone.getDeletedAt(), null));
+            }
+        }
+        
+        boolean hasNext = p < changed.size() || t < deleted.size();
+        Position next;
+        if (hasNext) {
+            PatientChange last = changes.get(changes.size() - 1);
+            next = new Position(last.getChangedAt(), last.getId());
+        } else {
+            // Everything before the settle horizon has been returned, so resume from there;
+            // a cursor that stayed put would expire after a quiet retention period
+            Position settled = new Position(until, 0L);
+            next = from.isBefore(settled.timestamp, settled.id) ? settled : from;
+        }
+        return new CursorPage<>(changes, hasNext, next.encode());
+    }
+    
+    private static int compare(Patient patient, PatientTombstone tombstone) {
+        int byTime = patient.getUpdatedAt().compareTo(tombstone.getDeletedAt());
+        return byTime != 0 ? byTime : patient.getId().compareTo(tombstone.getPatientId());
+    }
+    
+    /**
+     * Position in the change feed: (timestamp, id) of the last change seen
+     */
+    private static final class Position {
+        private static final String SEPARATOR = "|";
+        
+        private final LocalDateTime timestamp;
+        private final long id;
+        
+        private Position(LocalDateTime timestamp, long id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+        
+        private boolean isBefore(LocalDateTime otherTimestamp, long otherId) {
+            int byTime = timestamp.compareTo(otherTimestamp);
+            return byTime < 0 || (byTime == 0 && id < otherId);
+        }
+        
+        private static Position decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf(SEPARATOR);
+                return new Position(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + token, e);
+            }
+        }
+        
+        private String encode() {
+            String raw = timestamp + SEPARATOR + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    /**
+     * Raised when a cursor predates the oldest retained tombstone, so
+     * deletions since then can no longer be reported
+     */
+    public static class CursorExpiredException extends RuntimeException {
+        public CursorExpiredException(String message) {
+            super(message);
+        }
+    }
+}
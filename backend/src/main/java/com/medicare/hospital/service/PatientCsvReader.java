@@ -0,0 +1,149 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.dto.PatientDTO;
+import com.medicare.hospital.model.Patient;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaming reader for patient CSV files
+ * 
+ * The first line is a header naming the PatientDTO fields (firstName,
+ * lastName, email, phone, dateOfBirth, gender, address, emergencyContact,
+ * medicalHistory, insurance) in any order. Fields may be quoted with double
+ * quotes, in which case they can contain commas, doubled quotes and line
+ * breaks. Rows are parsed one at a time, so the whole file is never held
+ * in memory. A row that cannot be parsed is returned with an error instead
+ * of a DTO.
+ */
+class PatientCsvReader implements Iterator<PatientImportService.ImportRow> {
+    
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private List<String> nextRecord;
+    private int rowNumber;
+    
+    PatientCsvReader(Reader source) {
+        this.reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim(), i);
+        }
+        if (!columns.containsKey("email")) {
+            throw new IllegalArgumentException("CSV header must include an email column");
+        }
+        nextRecord = readRecord();
+    }
+    
+    @Override
+    public boolean hasNext() {
+        return nextRecord != null;
+    }
+    
+    @Override
+    public PatientImportService.ImportRow next() {
+        if (nextRecord == null) {
+            throw new NoSuchElementException();
+        }
+        List<String> record = nextRecord;
+        nextRecord = readRecord();
+        rowNumber++;
+        try {
+            return PatientImportService.ImportRow.of(rowNumber, toDTO(record));
+        } catch (RuntimeException e) {
+            return PatientImportService.ImportRow.failed(rowNumber, "Unparseable row: " + e.getMessage());
+        }
+    }
+    
+    // Helper methods
+    private PatientDTO toDTO(List<String> record) {
+        PatientDTO dto = new PatientDTO();
+        dto.setFirstName(field(record, "firstName"));
+        dto.setLastName(field(record, "lastName"));
+        dto.setEmail(field(record, "email"));
+        dto.setPhone(field(record, "phone"));
+        String dateOfBirth = field(record, "dateOfBirth");
+        dto.setDateOfBirth(dateOfBirth == null ? null : LocalDate.parse(dateOfBirth));
+        String gender = field(record, "gender");
+        dto.setGender(gender == null ? null : Patient.Gender.valueOf(gender.toUpperCase(Locale.ROOT)));
+        dto.setAddress(field(record, "address"));
+        dto.setEmergencyContact(field(record, "emergencyContact"));
+        dto.setMedicalHistory(field(record, "medicalHistory"));
+        dto.setInsurance(field(record, "insurance"));
+        return dto;
+    }
+    
+    private String field(List<String> record, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private List<String> readRecord() {
+        try {
+            String line = reader.readLine();
+            while (line != null && line.trim().isEmpty()) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+            
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (quoted) {
+                        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else if (c == '"') {
+                            quoted = false;
+                        } else {
+                            field.append(c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                // Quoted field continues on the next line
+                line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                field.append('\n');
+            }
+            fields.add(field.toString());
+            return fields;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
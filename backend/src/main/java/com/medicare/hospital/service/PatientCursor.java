@@ -0,0 +1,107 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.dto.PatientSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset-paginated patient listing
+ * 
+ * A cursor records the sort key and the (sort value, id) of the last patient
+ * returned. The next slice starts strictly after that pair, so rows inserted
+ * or deleted elsewhere never shift the listing the way OFFSET does. Cursors
+ * are exchanged with clients as URL-safe Base64 strings. A patient without
+ * a creation time (inserted outside the application) is recorded with an
+ * empty value.
+ */
+public class PatientCursor {
+    
+    /**
+     * Supported sort keys; ties are always broken by ID
+     */
+    public enum SortKey {
+        ID, LAST_NAME, CREATED_AT
+    }
+    
+    private static final String SEPARATOR = "|";
+    
+    private final SortKey sortKey;
+    private final String value;
+    private final long id;
+    
+    private PatientCursor(SortKey sortKey, String value, long id) {
+        this.sortKey = sortKey;
+        this.value = value;
+        this.id = id;
+    }
+    
+    /**
+     * Create the cursor pointing just after the given patient
+     * 
+     * @param sortKey Sort key of the listing
+     * @param patient Last patient returned
+     * @return Cursor for the next slice
+     */
+    public static PatientCursor after(SortKey sortKey, PatientSummary patient) {
+        String value;
+        switch (sortKey) {
+            case LAST_NAME:
+                value = patient.getLastName();
+                break;
+            case CREATED_AT:
+                value = patient.getCreatedAt() == null ? "" : patient.getCreatedAt().toString();
+                break;
+            default:
+                value = "";
+        }
+        return new PatientCursor(sortKey, value, patient.getId());
+    }
+    
+    /**
+     * Decode a cursor received from a client
+     * 
+     * @param token Encoded cursor
+     * @return Decoded cursor
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static PatientCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int last = raw.lastIndexOf(SEPARATOR);
+            if (first < 0 || first == last) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            SortKey sortKey = SortKey.valueOf(raw.substring(0, first));
+            String value = raw.substring(first + 1, last);
+            long id = Long.parseLong(raw.substring(last + 1));
+            if (sortKey == SortKey.CREATED_AT && !value.isEmpty()) {
+                LocalDateTime.parse(value);
+            }
+            return new PatientCursor(sortKey, value, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+    
+    /**
+     * @return URL-safe encoded form of this cursor
+     */
+    public String encode() {
+        String raw = sortKey.name() + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public SortKey getSortKey() { return sortKey; }
+    
+    public String getValue() { return value; }
+    
+    public long getId() { return id; }
+    
+    /**
+     * @return Creation time of a CREATED_AT cursor, or null if the patient has none
+     */
+    public LocalDateTime getCreatedAt() { return value.isEmpty() ? null : LocalDateTime.parse(value); }
+}
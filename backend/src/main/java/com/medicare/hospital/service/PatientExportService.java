@@ -0,0 +1,162 @@
+package com.medicare.hospital.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service for streaming exports of the patient registry
+ * 
+ * Patients are read through a forward-only repository stream and written
+ * straight to the output one at a time. Each entity is detached once it has
+ * been written, so memory use stays flat regardless of registry size.
+ */
+@Service
+public class PatientExportService {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private static final String[] CSV_HEADER = {
+        "id", "firstName", "lastName", "email", "phone", "dateOfBirth", "gender", "address",
+        "emergencyContact", "medicalHistory", "insurance", "createdAt", "updatedAt"
+    };
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    /**
+     * Supported export formats
+     * 
+     * SMILE is a sequence of Smile-encoded patient objects, one root value
+     * per patient, readable with any Jackson MappingIterator.
+     */
+    public enum Format {
+        NDJSON, CSV, SMILE
+    }
+    
+    /**
+     * Write every patient to the output stream in the given format
+     * 
+     * @param format Export format
+     * @param out Output stream (not closed by this method)
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public void export(Format format, OutputStream out) throws IOException {
+        if (format == Format.CSV) {
+            exportCsv(out);
+        } else if (format == Format.SMILE) {
+            exportSmile(out);
+        } else {
+            exportNdjson(out);
+        }
+    }
+    
+    // Helper methods
+    private void exportNdjson(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Patient.class);
+        OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        try (Stream<Patient> patients = patientRepository.streamAll()) {
+            Iterator<Patient> it = patients.iterator();
+            while (it.hasNext()) {
+                Patient patient = it.next();
+                buffered.write(writer.writeValueAsBytes(patient));
+                buffered.write('\n');
+                entityManager.detach(patient);
+            }
+        }
+        buffered.flush();
+    }
+    
+    private void exportSmile(OutputStream out) throws IOException {
+        ObjectMapper smileMapper = smileConverter.getObjectMapper();
+        // One generator for the whole export, so Smile's shared field names carry across patients
+        ObjectWriter writer = smileMapper.writerFor(Patient.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        try (JsonGenerator generator = smileMapper.getFactory().createGenerator(buffered)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+             Stream<Patient> patients = patientRepository.streamAll()) {
+            Iterator<Patient> it = patients.iterator();
+            while (it.hasNext()) {
+                Patient patient = it.next();
+                writer.writeValue(generator, patient);
+                entityManager.detach(patient);
+            }
+        }
+        buffered.flush();
+    }
+    
+    private void exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(String.join(",", CSV_HEADER));
+        writer.write('\n');
+        try (Stream<Patient> patients = patientRepository.streamAll()) {
+            patients.forEach(patient -> {
+                try {
+                    writeCsvRow(writer, patient);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(patient);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+    
+    private static void writeCsvRow(Writer writer, Patient patient) throws IOException {
+        Object[] values = {
+            patient.getId(), patient.getFirstName(), patient.getLastName(), patient.getEmail(),
+            patient.getPhone(), patient.getDateOfBirth(), patient.getGender(), patient.getAddress(),
+            patient.getEmergencyContact(), patient.getMedicalHistory(), patient.getInsurance(),
+            patient.getCreatedAt(), patient.getUpdatedAt()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(escapeCsv(values[i].toString()));
+            }
+        }
+        writer.write('\n');
+    }
+    
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,232 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.dto.ImportResult;
+import com.medicare.hospital.dto.PatientDTO;
+import com.medicare.hospital.index.PatientChangedEvent;
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service for bulk patient imports
+ * 
+ * Rows are validated in memory and written in chunks. For each chunk, email
+ * uniqueness is checked with a single IN query, and the new patients are
+ * persisted in one transaction so Hibernate can send them as JDBC batches.
+ * The persistence context is flushed and cleared after every chunk, so
+ * memory use does not grow with the size of the import.
+ * 
+ * If a chunk fails at the database (for example because another client
+ * registered one of its emails in the meantime), its rows are retried one
+ * by one so only the offending rows are rejected.
+ */
+@Service
+public class PatientImportService {
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Import patients from a JSON array
+     * 
+     * @param patients Patients to import
+     * @return Import result with per-row errors
+     */
+    public ImportResult importPatients(List<PatientDTO> patients) {
+        List<ImportRow> rows = new ArrayList<>(patients.size());
+        for (int i = 0; i < patients.size(); i++) {
+            rows.add(ImportRow.of(i + 1, patients.get(i)));
+        }
+        return importRows(rows.iterator());
+    }
+    
+    /**
+     * Import patients from a CSV document with a header line
+     * 
+     * @param csv CSV content
+     * @return Import result with per-row errors
+     * @throws IllegalArgumentException if the header is missing or invalid
+     */
+    public ImportResult importCsv(Reader csv) {
+        return importRows(new PatientCsvReader(csv));
+    }
+    
+    // Helper methods
+    private ImportResult importRows(Iterator<ImportRow> rows) {
+        ImportResult result = new ImportResult();
+        Set<String> seenEmails = new HashSet<>();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        int total = 0;
+        
+        while (rows.hasNext()) {
+            ImportRow row = rows.next();
+            total++;
+            if (row.error != null) {
+                result.addError(row.number, row.error);
+                continue;
+            }
+            String error = validate(row.patient);
+            if (error != null) {
+                result.addError(row.number, error);
+                continue;
+            }
+            if (!seenEmails.add(normalizeEmail(row.patient.getEmail()))) {
+                result.addError(row.number, "Duplicate email within import");
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, result);
+        }
+        
+        result.setTotalRows(total);
+        return result;
+    }
+    
+    private String validate(PatientDTO patient) {
+        Set<ConstraintViolation<PatientDTO>> violations = validator.validate(patient);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .map(ConstraintViolation::getMessage)
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+    
+    private void writeChunk(List<ImportRow> chunk, ImportResult result) {
+        // Trimmed like the comparison below, or padded emails would miss their registered match
+        Set<String> emails = chunk.stream()
+            .map(row -> row.patient.getEmail().trim())
+            .collect(Collectors.toSet());
+        Set<String> existing = patientRepository.findExistingEmails(emails).stream()
+            .map(PatientImportService::normalizeEmail)
+            .collect(Collectors.toSet());
+        
+        List<ImportRow> toInsert = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existing.contains(normalizeEmail(row.patient.getEmail()))) {
+                result.addError(row.number, "Email already exists");
+            } else {
+                toInsert.add(row);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(toInsert));
+            result.setImported(result.getImported() + toInsert.size());
+        } catch (DataAccessException | PersistenceException e) {
+            for (ImportRow row : toInsert) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(Collections.singletonList(row)));
+                    result.setImported(result.getImported() + 1);
+                } catch (DataAccessException | PersistenceException rowFailure) {
+                    result.addError(row.number, "Rejected by database: " + rootMessage(rowFailure));
+                }
+            }
+        }
+    }
+    
+    private void insert(List<ImportRow> rows) {
+        List<Patient> patients = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            Patient patient = row.patient.toEntity();
+            entityManager.persist(patient);
+            patients.add(patient);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        patients.forEach(patient -> eventPublisher.publishEvent(PatientChangedEvent.saved(patient)));
+    }
+    
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+    
+    /**
+     * A numbered input row, holding either a parsed patient or a parse error
+     */
+    public static class ImportRow {
+        private final int number;
+        private final PatientDTO patient;
+        private final String error;
+        
+        private ImportRow(int number, PatientDTO patient, String error) {
+            this.number = number;
+            this.patient = patient;
+            this.error = error;
+        }
+        
+        static ImportRow of(int number, PatientDTO patient) {
+            return new ImportRow(number, patient, null);
+        }
+        
+        static ImportRow failed(int number, String error) {
+            return new ImportRow(number, null, error);
+        }
+        
+        int getNumber() { return number; }
+        PatientDTO getPatient() { return patient; }
+        String getError() { return error; }
+    }
+}
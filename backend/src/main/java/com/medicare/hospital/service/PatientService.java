@@ -1,17 +1,54 @@
 package com.medicare.hospital.service;
 
+import com.medicare.hospital.index.ConditionIndex;
+import com.medicare.hospital.index.DemographicsSnapshot;
+import com.medicare.hospital.index.PatientCriteria;
+import com.medicare.hospital.index.InsuranceDictionary;
+import com.medicare.hospital.index.PatientBitmapIndex;
+import com.medicare.hospital.index.PatientChangedEvent;
+import com.medicare.hospital.index.PatientIndexManager;
+import com.medicare.hospital.index.PatientIndexes;
+import com.medicare.hospital.index.PatientSearchIndex;
+import com.medicare.hospital.index.PatientStatisticsAggregator;
 import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.model.PatientTombstone;
 import com.medicare.hospital.repository.PatientRepository;
+import com.medicare.hospital.repository.PatientTombstoneRepository;
 import com.medicare.hospital.controller.PatientController.PatientStatistics;
+import com.medicare.hospital.config.ReplicaRoutingDataSource;
+import com.medicare.hospital.dto.AgeGroupCount;
+import com.medicare.hospital.dto.CursorPage;
+import com.medicare.hospital.dto.DemographicsBreakdown;
+import com.medicare.hospital.dto.InsuranceMix;
+import com.medicare.hospital.dto.NameSuggestion;
+import com.medicare.hospital.dto.PatientSummary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service layer for Patient operations
@@ -22,15 +59,40 @@ import java.util.Optional;
  * - Statistics calculation
  * - Data validation
  * 
- * All methods are transactional to ensure data consistency
+ * All methods are transactional to ensure data consistency, except those
+ * answered from the in-memory indexes alone: a transaction would check out
+ * a pooled connection they never use.
  */
 @Service
 @Transactional
 public class PatientService {
     
+    /**
+     * Default age buckets: under 18, 18-30, 31-50, 51-70 and over 70
+     */
+    public static final int[] DEFAULT_AGE_BOUNDARIES = { 18, 31, 51, 71 };
+    
+    // Maximum number of IDs bound to one IN query
+    private static final int ID_BATCH_SIZE = 1000;
+    
     @Autowired
     private PatientRepository patientRepository;
     
+    @Autowired
+    private PatientTombstoneRepository tombstoneRepository;
+    
+    @Autowired
+    private PatientIndexManager indexManager;
+    
+    @Autowired
+    private InsuranceDictionary insuranceDictionary;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${app.pagination.max-page-size:100}")
+    private int maxPageSize;
+    
     /**
      * Find all patients with pagination
      * 
@@ -42,38 +104,161 @@ public class PatientService {
         return patientRepository.findAll(pageable);
     }
     
+    /**
+     * Find a page of patient summaries
+     * 
+     * Summaries omit the TEXT columns, so list pages stay small.
+     * 
+     * @param pageable Pagination information
+     * @return Page of patient summaries
+     */
+    @Transactional(readOnly = true)
+    public Page<PatientSummary> findAllSummaries(Pageable pageable) {
+        return patientRepository.findAllSummaries(pageable);
+    }
+    
+    /**
+     * Find a slice of patient summaries using keyset (cursor) pagination
+     * 
+     * Each slice is read with a seek on (sort value, id) instead of an
+     * OFFSET, and no total count is computed, so deep slices cost the same
+     * as the first one. Like the other listings, slices carry summaries
+     * without the TEXT columns.
+     * 
+     * @param sortKey Sort key, used when starting a new listing
+     * @param cursor Cursor returned with the previous slice, or null for the first slice
+     * @param size Slice size (capped at the max page size)
+     * @return Slice of patient summaries with the cursor for the next one
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PatientSummary> findSlice(PatientCursor.SortKey sortKey, String cursor, int size) {
+        int sliceSize = Math.max(1, Math.min(size, maxPageSize));
+        // Read one extra row to learn whether another slice follows
+        Pageable limit = PageRequest.of(0, sliceSize + 1);
+        
+        List<PatientSummary> patients;
+        if (cursor == null || cursor.isEmpty()) {
+            patients = patientRepository.findFirstSlice(PageRequest.of(0, sliceSize + 1, sortFor(sortKey)));
+        } else {
+            PatientCursor position = PatientCursor.decode(cursor);
+            sortKey = position.getSortKey();
+            switch (sortKey) {
+                case LAST_NAME:
+                    patients = patientRepository.findSliceAfterLastName(position.getValue(), position.getId(), limit);
+                    break;
+                case CREATED_AT:
+                    patients = position.getCreatedAt() == null
+                        ? patientRepository.findSliceAfterMissingCreatedAt(position.getId(), limit)
+                        : patientRepository.findSliceAfterCreatedAt(position.getCreatedAt(), position.getId(), limit);
+                    break;
+                default:
+                    patients = patientRepository.findSliceAfterId(position.getId(), limit);
+            }
+        }
+        
+        boolean hasNext = patients.size() > sliceSize;
+        if (hasNext) {
+            patients = patients.subList(0, sliceSize);
+        }
+        String nextCursor = hasNext
+            ? PatientCursor.after(sortKey, patients.get(patients.size() - 1)).encode()
+            : null;
+        return new CursorPage<>(patients, hasNext, nextCursor);
+    }
+    
     /**
      * Find patient by ID
      * 
+     * Served through the "patients" read-through cache when caching is enabled.
+     * Read from the primary even with replica routing, since a lagging
+     * replica's row would stay cached until the entry expires.
+     * 
      * @param id Patient ID
      * @return Optional containing patient if found
      */
+    @Cacheable(value = PatientCacheInvalidator.CACHE_NAME, key = "#id", unless = "#result == null")
     @Transactional(readOnly = true)
     public Optional<Patient> findById(Long id) {
+        return ReplicaRoutingDataSource.readFromPrimary(() -> patientRepository.findById(id));
+    }
+    
+    /**
+     * Load a patient in order to modify it
+     * 
+     * Bypasses the "patients" cache: the cached instance is shared with
+     * concurrent readers, so it must never be modified, and a failed save
+     * would leave the changes in the cache.
+     * 
+     * @param id Patient ID
+     * @return Optional containing a patient instance owned by the caller
+     */
+    @Transactional
+    public Optional<Patient> findByIdForUpdate(Long id) {
         return patientRepository.findById(id);
     }
     
     /**
      * Save patient (create or update)
      * 
+     * The cached entry is evicted up front and again after commit by
+     * PatientCacheInvalidator, so a read racing the commit cannot leave the
+     * previous state cached.
+     * 
      * @param patient Patient to save
      * @return Saved patient
      */
+    @CacheEvict(value = PatientCacheInvalidator.CACHE_NAME, key = "#patient.id",
+                condition = "#patient.id != null", beforeInvocation = true)
     public Patient save(Patient patient) {
         validatePatient(patient);
-        return patientRepository.save(patient);
+        Patient savedPatient = patientRepository.save(patient);
+        eventPublisher.publishEvent(PatientChangedEvent.saved(savedPatient));
+        return savedPatient;
     }
     
     /**
      * Delete patient by ID
      * 
+     * A tombstone is recorded in the same transaction so the change feed
+     * can report the deletion.
+     * 
      * @param id Patient ID
      */
+    @CacheEvict(value = PatientCacheInvalidator.CACHE_NAME, key = "#id", beforeInvocation = true)
     public void deleteById(Long id) {
         if (!patientRepository.existsById(id)) {
             throw new PatientNotFoundException("Patient with ID " + id + " not found");
         }
         patientRepository.deleteById(id);
+        tombstoneRepository.save(new PatientTombstone(id, LocalDateTime.now()));
+        eventPublisher.publishEvent(PatientChangedEvent.deleted(id));
+    }
+    
+    /**
+     * Get the current version of a patient without loading it
+     * 
+     * Used to answer conditional requests, so it is read from the primary
+     * like findById.
+     * 
+     * @param id Patient ID
+     * @return Optional containing the version if the patient exists
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        return ReplicaRoutingDataSource.readFromPrimary(() -> patientRepository.findVersionById(id));
+    }
+    
+    /**
+     * Get a tag identifying the current state of the whole registry
+     * 
+     * The tag changes with every committed create, update or delete, so it
+     * can serve as the entity tag of list responses.
+     * 
+     * @return Registry version tag, empty while the indexes are being built
+     */
+    public Optional<String> getRegistryVersionTag() {
+        return indexManager.isReady() ? Optional.of(indexManager.getVersionTag()) : Optional.empty();
     }
     
     /**
@@ -90,24 +275,87 @@ public class PatientService {
     /**
      * Search patients by name or email
      * 
+     * Answered from the in-memory trigram index, ranked by match quality.
+     * Queries of one or two characters are too short for a trigram and are
+     * answered as a name prefix from the typeahead index instead, rather
+     * than by checking every patient. Falls back to the database while the
+     * indexes are still being built.
+     * 
      * @param query Search query
-     * @return List of matching patients
+     * @param limit Maximum number of results (capped at the max page size)
+     * @return Summaries of matching patients, best match first
+     */
+    @Transactional(readOnly = true)
+    public List<PatientSummary> searchPatients(String query, int limit) {
+        int cappedLimit = Math.min(limit, maxPageSize);
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes == null) {
+            return patientRepository.findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCaseOrEmailContainingIgnoreCase(
+                query, query, query).stream()
+                .limit(Math.max(cappedLimit, 0))
+                .map(PatientSummary::from)
+                .collect(Collectors.toList());
+        }
+        List<Long> ids;
+        if (query.trim().length() < PatientSearchIndex.MIN_QUERY_LENGTH) {
+            ids = indexes.getTypeaheadIndex().suggest(query, cappedLimit).stream()
+                .map(NameSuggestion::getId)
+                .collect(Collectors.toList());
+        } else {
+            ids = indexes.getSearchIndex().search(query, cappedLimit);
+        }
+        return inIdOrder(ids, patientRepository.findSummariesByIdIn(ids), PatientSummary::getId);
+    }
+    
+    /**
+     * Suggest patients whose first, last or full name starts with a prefix
+     * 
+     * Answered from the in-memory name index; returns nothing while the
+     * index is still being built rather than scanning the table on every
+     * keystroke.
+     * 
+     * @param prefix Typed prefix
+     * @param limit Maximum number of suggestions (capped at the max page size)
+     * @return Suggestions in alphabetical name order
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<NameSuggestion> suggestNames(String prefix, int limit) {
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes == null) {
+            return Collections.emptyList();
+        }
+        return indexes.getTypeaheadIndex().suggest(prefix, Math.min(limit, maxPageSize));
+    }
+    
+    /**
+     * Find patients whose phone number ends with the given digits
+     * 
+     * Typically the last 4-7 digits shown by caller ID. Formatting in the
+     * query and in stored numbers is ignored; the lookup is a prefix seek on
+     * the reversed-digits index.
+     * 
+     * @param lastDigits Trailing digits of the phone number
+     * @return Summaries of matching patients
+     * @throws IllegalArgumentException if fewer than 4 digits are given
      */
     @Transactional(readOnly = true)
-    public List<Patient> searchPatients(String query) {
-        return patientRepository.findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCaseOrEmailContainingIgnoreCase(
-            query, query, query);
+    public List<PatientSummary> findByPhoneSuffix(String lastDigits) {
+        String reversed = Patient.reverseDigits(lastDigits);
+        if (reversed.length() < 4) {
+            throw new IllegalArgumentException("At least 4 digits are required");
+        }
+        return patientRepository.findSummariesByPhoneReversedStartingWith(reversed);
     }
     
     /**
      * Find patients by gender
      * 
      * @param gender Patient gender
-     * @return List of patients with specified gender
+     * @return Summaries of patients with specified gender
      */
     @Transactional(readOnly = true)
-    public List<Patient> findByGender(Patient.Gender gender) {
-        return patientRepository.findByGender(gender);
+    public List<PatientSummary> findByGender(Patient.Gender gender) {
+        return patientRepository.findSummariesByGender(gender);
     }
     
     /**
@@ -127,33 +375,262 @@ public class PatientService {
     /**
      * Find patients by insurance provider
      * 
-     * @param insurance Insurance provider name
-     * @return List of patients with specified insurance
+     * The provider is matched by canonical key, as the filter and
+     * demographics endpoints do, so every spelling and alias of the same
+     * provider counts. While the indexes are still being built, the
+     * stored provider names are reduced to their keys instead.
+     * 
+     * @param insurance Insurance provider name in any known spelling
+     * @return Summaries of patients with specified insurance, ordered by ID
+     */
+    @Transactional(readOnly = true)
+    public List<PatientSummary> findByInsurance(String insurance) {
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes == null) {
+            String key = insuranceDictionary.canonicalKey(insurance);
+            List<String> spellings = key.isEmpty() ? new ArrayList<>() : patientRepository.findInsuranceNames().stream()
+                .filter(name -> insuranceDictionary.canonicalKey(name).equals(key))
+                .collect(Collectors.toList());
+            return spellings.isEmpty() ? new ArrayList<>() : patientRepository.findSummariesByInsuranceIn(spellings);
+        }
+        return findSummariesInOrder(indexes.getInsuranceIndex().findPatients(insurance));
+    }
+    
+    /**
+     * Find patients without insurance information
+     * 
+     * @return Summaries of patients with a blank insurance provider, ordered by ID
+     */
+    @Transactional(readOnly = true)
+    public List<PatientSummary> findPatientsWithoutInsurance() {
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes == null) {
+            return patientRepository.findPatientsWithoutInsurance().stream()
+                .map(PatientSummary::from)
+                .collect(Collectors.toList());
+        }
+        List<Long> ids = new ArrayList<>();
+        indexes.getInsuranceIndex().uninsuredPatients().forEach((int id) -> ids.add((long) id));
+        return findSummariesInOrder(ids);
+    }
+    
+    /**
+     * Get the number of patients of each insurance provider
+     * 
+     * Read from the patients kept per provider by the insurance index; no
+     * query is run.
+     * 
+     * @return Provider counts, most patients first
+     * @throws IllegalStateException while the insurance index is still being built
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public InsuranceMix getInsuranceMix() {
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes == null) {
+            throw new IllegalStateException("Insurance index is still loading");
+        }
+        List<InsuranceMix.ProviderCount> providers = indexes.getInsuranceIndex().providerCounts().stream()
+            .map(count -> new InsuranceMix.ProviderCount(count.getId(), count.getName(), count.getCount()))
+            .collect(Collectors.toList());
+        long insured = providers.stream().mapToLong(InsuranceMix.ProviderCount::getCount).sum();
+        return new InsuranceMix(insured, indexes.getInsuranceIndex().uninsuredCount(), providers);
+    }
+    
+    /**
+     * Find the IDs of patients matching several demographic criteria at once
+     * 
+     * Evaluated as an intersection of the in-memory bitmap indexes, so the
+     * cost follows the size of the result rather than of the registry.
+     * 
+     * @param criteria Filter (gender, age range, insurance, registration date)
+     * @param pageable Page of IDs to return (ascending ID order; size capped at the max page size)
+     * @return Page of matching patient IDs with the total match count
+     * @throws IllegalArgumentException if insurance and withoutInsurance are combined
+     * @throws IllegalStateException while the indexes are still being built
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<Long> filterPatientIds(PatientCriteria criteria, Pageable pageable) {
+        criteria.validate();
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes == null) {
+            throw new IllegalStateException("Patient filter indexes are still loading");
+        }
+        Pageable page = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), maxPageSize));
+        PatientBitmapIndex.Result result = indexes.getBitmapIndex()
+            .find(criteria, LocalDate.now(), page.getOffset(), page.getPageSize());
+        return new PageImpl<>(result.getIds(), page, result.getCount());
+    }
+    
+    /**
+     * Find patients whose medical history mentions the given conditions
+     * 
+     * Answered from the medical history term index. Each condition is a
+     * phrase whose words must all appear; a trailing '*' matches by prefix.
+     * 
+     * @param conditions Condition phrases
+     * @param mode Whether all or any of the conditions must match
+     * @param pageable Page of results to return (ordered by patient ID)
+     * @return Page of matching patient summaries
      */
     @Transactional(readOnly = true)
-    public List<Patient> findByInsurance(String insurance) {
-        return patientRepository.findByInsuranceContainingIgnoreCase(insurance);
+    public Page<PatientSummary> findPatientsWithConditions(List<String> conditions, ConditionIndex.Mode mode,
+                                                           Pageable pageable) {
+        List<String> phrases = conditions.stream()
+            .filter(condition -> condition != null && !condition.trim().isEmpty())
+            .collect(Collectors.toList());
+        if (phrases.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        
+        // Phrases of stop words only have no terms in the index
+        boolean indexable = phrases.stream().allMatch(ConditionIndex::hasTerms);
+        PatientIndexes indexes = indexManager.getIndexes();
+        List<Long> ids = indexes != null && indexable
+            ? indexes.getConditionIndex().find(phrases, mode)
+            : findPatientIdsWithConditions(phrases, mode);
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        List<Long> pageIds = ids.subList(from, to);
+        List<PatientSummary> content = pageIds.isEmpty()
+            ? Collections.emptyList()
+            : inIdOrder(pageIds, patientRepository.findSummariesByIdIn(pageIds), PatientSummary::getId);
+        return new PageImpl<>(content, pageable, ids.size());
+    }
+    
+    /**
+     * Condition lookup against the database, used while the condition index
+     * is still being built or when a phrase has no indexable terms
+     */
+    private List<Long> findPatientIdsWithConditions(List<String> phrases, ConditionIndex.Mode mode) {
+        Set<Long> result = null;
+        for (String phrase : phrases) {
+            Set<Long> matches = patientRepository.findPatientsWithCondition(phrase.replace("*", "").trim()).stream()
+                .map(Patient::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+            if (result == null) {
+                result = matches;
+            } else if (mode == ConditionIndex.Mode.ALL) {
+                result.retainAll(matches);
+            } else {
+                result.addAll(matches);
+            }
+        }
+        List<Long> ids = new ArrayList<>(result);
+        Collections.sort(ids);
+        return ids;
     }
     
     /**
      * Get patient statistics
      * 
+     * Read from the running counters kept by PatientStatisticsAggregator, with
+     * the exact average age derived from the age histogram. While those are
+     * still being built, the numbers come from aggregate queries instead, so
+     * no patient entities are loaded either way. Ages are exact in both cases.
+     * 
      * @return Patient statistics object
      */
     @Transactional(readOnly = true)
     public PatientStatistics getPatientStatistics() {
-        long totalPatients = patientRepository.count();
-        long malePatients = patientRepository.countByGender(Patient.Gender.MALE);
-        long femalePatients = patientRepository.countByGender(Patient.Gender.FEMALE);
+        LocalDate today = LocalDate.now();
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes == null) {
+            return new PatientStatistics(
+                patientRepository.count(),
+                patientRepository.countByGender(Patient.Gender.MALE),
+                patientRepository.countByGender(Patient.Gender.FEMALE),
+                averageAgeFromDatabase(today));
+        }
+        PatientStatisticsAggregator statistics = indexes.getStatisticsAggregator();
+        return new PatientStatistics(
+            statistics.getTotal(),
+            statistics.getCount(Patient.Gender.MALE),
+            statistics.getCount(Patient.Gender.FEMALE),
+            indexes.getAgeHistogram().averageAge(today));
+    }
+    
+    /**
+     * Exact average age from patient counts per date of birth, used while
+     * the age histogram is still being built
+     */
+    private double averageAgeFromDatabase(LocalDate today) {
+        long ageSum = 0;
+        long total = 0;
+        for (Object[] row : patientRepository.countGroupByDateOfBirth()) {
+            long count = ((Number) row[1]).longValue();
+            // Dates of birth in the future count as age 0, as in the histogram
+            ageSum += Math.max(0, Period.between((LocalDate) row[0], today).getYears()) * count;
+            total += count;
+        }
+        return total == 0 ? 0.0 : (double) ageSum / total;
+    }
+    
+    /**
+     * Count patients per age group
+     * 
+     * Ages are exact (birthdays later in the year are taken into account).
+     * Derived from the age histogram in a few prefix sums; while the
+     * histogram is being built, one indexed count query runs per boundary.
+     * 
+     * @param boundaries Ascending minimum ages of each group after the first,
+     *                   e.g. { 18, 31 } for under 18, 18-30 and over 30
+     * @return Patient count per age group, youngest first
+     * @throws IllegalArgumentException if the boundaries are not positive and ascending
+     */
+    @Transactional(readOnly = true)
+    public List<AgeGroupCount> getPatientCountByAgeGroup(int[] boundaries) {
+        checkAgeBoundaries(boundaries);
         
-        // Calculate average age
-        List<Patient> allPatients = patientRepository.findAll();
-        double averageAge = allPatients.stream()
-            .mapToInt(Patient::getAge)
-            .average()
-            .orElse(0.0);
+        LocalDate today = LocalDate.now();
+        long[] counts;
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes != null) {
+            counts = indexes.getAgeHistogram().countByAge(today, boundaries);
+        } else {
+            counts = new long[boundaries.length + 1];
+            long olderThanPrevious = patientRepository.countByDateOfBirthNotNull();
+            for (int i = 0; i < boundaries.length; i++) {
+                long atLeast = patientRepository.countByDateOfBirthLessThanEqual(today.minusYears(boundaries[i]));
+                counts[i] = olderThanPrevious - atLeast;
+                olderThanPrevious = atLeast;
+            }
+            counts[boundaries.length] = olderThanPrevious;
+        }
+        return toAgeGroups(boundaries, counts);
+    }
+    
+    /**
+     * Break down the patients matching a filter by gender, age group and
+     * insurance provider
+     * 
+     * Answered by a scan of the in-memory demographics snapshot; no
+     * entities are loaded.
+     * 
+     * @param criteria Filter (gender, age range, insurance, registration date)
+     * @param boundaries Ascending minimum ages of each age group after the first
+     * @return Demographic counts over the matching patients
+     * @throws IllegalArgumentException if the boundaries are not positive and ascending,
+     *         or insurance and withoutInsurance are combined
+     * @throws IllegalStateException while the snapshot is still being built
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DemographicsBreakdown getDemographics(PatientCriteria criteria, int[] boundaries) {
+        checkAgeBoundaries(boundaries);
+        criteria.validate();
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes == null) {
+            throw new IllegalStateException("Demographics snapshot is still loading");
+        }
         
-        return new PatientStatistics(totalPatients, malePatients, femalePatients, averageAge);
+        DemographicsSnapshot.Breakdown breakdown = indexes.getDemographicsSnapshot()
+            .aggregate(criteria, LocalDate.now(), boundaries);
+        Map<String, Long> byGender = new LinkedHashMap<>();
+        for (Patient.Gender gender : Patient.Gender.values()) {
+            byGender.put(gender.name(), breakdown.getCount(gender));
+        }
+        return new DemographicsBreakdown(breakdown.getTotal(), byGender,
+            toAgeGroups(boundaries, breakdown.getByAgeGroup()),
+            breakdown.getByInsurance(), breakdown.getWithoutInsurance());
     }
     
     /**
@@ -163,16 +640,129 @@ public class PatientService {
      */
     @Transactional(readOnly = true)
     public List<Patient> getPatientsWithUpcomingBirthdays() {
-        LocalDate today = LocalDate.now();
-        LocalDate thirtyDaysFromNow = today.plusDays(30);
-        
-        // This is a simplified version - in real implementation, you'd need more complex date logic
-        return patientRepository.findAll().stream()
-            .filter(patient -> {
-                LocalDate birthday = patient.getDateOfBirth().withYear(today.getYear());
-                return birthday.isAfter(today) && birthday.isBefore(thirtyDaysFromNow);
-            })
-            .toList();
+        return getPatientsWithUpcomingBirthdays(30);
+    }
+    
+    /**
+     * Get patients whose birthday falls within the next given number of days,
+     * starting tomorrow, ordered by upcoming birthday
+     * 
+     * Answered as a range scan over the birthday index, so only matching
+     * patients are loaded. Windows crossing December 31 are split in two,
+     * and February 29 birthdays count as February 28 in non-leap years.
+     * 
+     * @param days Number of days to look ahead
+     * @return List of patients with upcoming birthdays
+     */
+    @Transactional(readOnly = true)
+    public List<Patient> getPatientsWithUpcomingBirthdays(int days) {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes == null) {
+            return findBirthdaysInWindow(tomorrow, days);
+        }
+        return findAllByIdInOrder(indexes.getBirthdayIndex().findInWindow(tomorrow, days));
+    }
+    
+    /**
+     * Birthday window lookup against the database, used while the birthday
+     * index is still being built
+     */
+    private List<Patient> findBirthdaysInWindow(LocalDate from, int days) {
+        if (days <= 0) {
+            return new ArrayList<>();
+        }
+        LocalDate to = from.plusDays(Math.min(days, 366) - 1);
+        int start = from.getMonthValue() * 100 + from.getDayOfMonth();
+        int end = to.getMonthValue() * 100 + to.getDayOfMonth();
+        if (end == 228 && !to.isLeapYear()) {
+            end = 229;
+        }
+        if (start <= end && from.getYear() == to.getYear()) {
+            return patientRepository.findByBirthdayBetween(start, end);
+        }
+        List<Patient> patients = new ArrayList<>(patientRepository.findByBirthdayBetween(start, 1231));
+        patients.addAll(patientRepository.findByBirthdayBetween(101, Math.min(end, start - 1)));
+        return patients;
+    }
+    
+    private static void checkAgeBoundaries(int[] boundaries) {
+        for (int i = 0; i < boundaries.length; i++) {
+            if (boundaries[i] <= 0 || (i > 0 && boundaries[i] <= boundaries[i - 1])) {
+                throw new IllegalArgumentException("Age boundaries must be positive and ascending");
+            }
+        }
+    }
+    
+    private static List<AgeGroupCount> toAgeGroups(int[] boundaries, long[] counts) {
+        List<AgeGroupCount> groups = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            int minAge = i == 0 ? 0 : boundaries[i - 1];
+            Integer maxAge = i == boundaries.length ? null : boundaries[i] - 1;
+            String label;
+            if (boundaries.length == 0) {
+                label = "All";
+            } else if (i == 0) {
+                label = "Under " + boundaries[0];
+            } else if (maxAge == null) {
+                label = "Over " + (minAge - 1);
+            } else {
+                label = minAge + "-" + maxAge;
+            }
+            groups.add(new AgeGroupCount(label, minAge, maxAge, counts[i]));
+        }
+        return groups;
+    }
+    
+    private static Sort sortFor(PatientCursor.SortKey sortKey) {
+        switch (sortKey) {
+            case LAST_NAME:
+                return Sort.by("lastName", "id");
+            case CREATED_AT:
+                return Sort.by("createdAt", "id");
+            default:
+                return Sort.by("id");
+        }
+    }
+    
+    /**
+     * Load patients by ID, preserving the order of the given IDs
+     * 
+     * @param ids Patient IDs in the desired order
+     * @return Patients that still exist, in the same order
+     */
+    private List<PatientSummary> findSummariesInOrder(List<Long> ids) {
+        List<PatientSummary> summaries = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + ID_BATCH_SIZE, ids.size()));
+            summaries.addAll(inIdOrder(batch, patientRepository.findSummariesByIdIn(batch), PatientSummary::getId));
+        }
+        return summaries;
+    }
+    
+    private List<Patient> findAllByIdInOrder(List<Long> ids) {
+        return inIdOrder(ids, patientRepository.findAllById(ids), Patient::getId);
+    }
+    
+    /**
+     * Arrange rows loaded by ID in the order of the given IDs
+     * 
+     * @param ids IDs in the desired order
+     * @param rows Rows loaded for those IDs, in any order
+     * @param idOf Extracts the ID of a row
+     * @return Rows in ID order, skipping IDs with no row
+     */
+    private static <T> List<T> inIdOrder(List<Long> ids, List<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = rows.stream()
+            .collect(Collectors.toMap(idOf, Function.identity()));
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
     }
     
     /**
@@ -202,7 +792,16 @@ public class PatientService {
             throw new IllegalArgumentException("Date of birth cannot be in the future");
         }
         
-        // Check for duplicate email (excluding current patient if updating)
+        // Check for duplicate email (excluding current patient if updating).
+        // The email index settles the common no-conflict case without SQL;
+        // only an apparent conflict is confirmed against the database.
+        PatientIndexes indexes = indexManager.getIndexes();
+        if (indexes != null) {
+            Long owner = indexes.getEmailIndex().findOwner(patient.getEmail());
+            if (owner == null || owner.equals(patient.getId())) {
+                return;
+            }
+        }
         Optional<Patient> existingPatient = patientRepository.findByEmail(patient.getEmail());
         if (existingPatient.isPresent() && !existingPatient.get().getId().equals(patient.getId())) {
             throw new IllegalArgumentException("Email already exists");
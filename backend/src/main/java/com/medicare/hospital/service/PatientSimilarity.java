@@ -0,0 +1,166 @@
+package com.medicare.hospital.service;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+
+/**
+ * String and field similarity functions used to detect duplicate patients
+ * 
+ * All functions are pure and thread-safe; names are expected in the form
+ * returned by normalizeName().
+ */
+public final class PatientSimilarity {
+    
+    // Soundex digit for each letter a-z; 0 for vowels and h, w, y
+    private static final char[] SOUNDEX_CODES = "01230120022455012623010202".toCharArray();
+    
+    private PatientSimilarity() {}
+    
+    /**
+     * Reduce a name to lowercase ASCII letters, dropping accents, spaces,
+     * hyphens and apostrophes ("O'Brien-Núñez" becomes "obriennunez")
+     * 
+     * @param name Name as entered
+     * @return Normalized name, empty if it has no letters
+     */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder letters = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = Character.toLowerCase(decomposed.charAt(i));
+            if (c >= 'a' && c <= 'z') {
+                letters.append(c);
+            }
+        }
+        return letters.toString();
+    }
+    
+    /**
+     * Get the letters of an email address before the @, ignoring dots,
+     * digits and other separators ("j.smith.1987@example.org" becomes "jsmith")
+     * 
+     * @param email Email address
+     * @return Letters of the local part, empty if there are none
+     */
+    public static String emailLetters(String email) {
+        if (email == null) {
+            return "";
+        }
+        int at = email.indexOf('@');
+        return normalizeName(at < 0 ? email : email.substring(0, at));
+    }
+    
+    /**
+     * American Soundex code of a normalized name, packed into an int
+     * 
+     * Names that sound alike ("Smith" and "Smyth" are both S530) get
+     * the same code, so misspelled last names still land in the same block.
+     * 
+     * @param name Normalized name (lowercase letters)
+     * @return Packed code, or -1 for an empty name
+     */
+    public static int soundex(String name) {
+        if (name.isEmpty()) {
+            return -1;
+        }
+        int code = name.charAt(0) - 'a';
+        int digits = 0;
+        char previous = SOUNDEX_CODES[name.charAt(0) - 'a'];
+        for (int i = 1; i < name.length() && digits < 3; i++) {
+            char c = name.charAt(i);
+            char digit = SOUNDEX_CODES[c - 'a'];
+            if (digit != '0' && digit != previous) {
+                code = code * 7 + (digit - '0');
+                digits++;
+            }
+            // h and w do not separate letters with the same code; vowels do
+            if (c != 'h' && c != 'w') {
+                previous = digit;
+            }
+        }
+        // Pad with zeros as in S500
+        for (; digits < 3; digits++) {
+            code = code * 7;
+        }
+        return code;
+    }
+    
+    /**
+     * Jaro-Winkler similarity, favouring strings with a common prefix
+     * 
+     * @param a First string
+     * @param b Second string
+     * @return Similarity between 0 (nothing in common) and 1 (equal)
+     */
+    public static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return a.isEmpty() ? 0 : 1;
+        }
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] matchedA = new boolean[a.length()];
+        boolean[] matchedB = new boolean[b.length()];
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(b.length(), i + window + 1);
+            for (int j = from; j < to; j++) {
+                if (!matchedB[j] && a.charAt(i) == b.charAt(j)) {
+                    matchedA[i] = true;
+                    matchedB[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (matchedA[i]) {
+                while (!matchedB[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3;
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(a.length(), b.length())) && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+    
+    /**
+     * Similarity of two dates of birth, allowing for typical entry errors
+     * 
+     * @param a First date
+     * @param b Second date
+     * @return 1 if equal; 0.6 if day and month are swapped or only one of
+     *         day, month and year differs; otherwise 0
+     */
+    public static double birthDateSimilarity(LocalDate a, LocalDate b) {
+        if (a.equals(b)) {
+            return 1;
+        }
+        boolean sameYear = a.getYear() == b.getYear();
+        if (sameYear && a.getDayOfMonth() == b.getMonthValue() && a.getMonthValue() == b.getDayOfMonth()) {
+            return 0.6;
+        }
+        int differences = (sameYear ? 0 : 1)
+            + (a.getMonthValue() == b.getMonthValue() ? 0 : 1)
+            + (a.getDayOfMonth() == b.getDayOfMonth() ? 0 : 1);
+        return differences == 1 ? 0.6 : 0;
+    }
+}
@@ -0,0 +1,65 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Populates the reversed phone digits column for patients saved before it existed
+ * 
+ * Runs once at startup in small transactions, walking the patients in ID
+ * order. Rows are updated with a bulk update rather than saved as entities,
+ * so their version and updatedAt stay untouched: ETags remain valid and the
+ * change feed does not report every patient as updated. New and updated
+ * patients get the column from the entity itself, so after the first run
+ * this only issues a single empty query.
+ */
+@Component
+public class PhoneNumberBackfill {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PhoneNumberBackfill.class);
+    private static final int BATCH_SIZE = 500;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long updated = 0;
+        long lastId = 0L;
+        List<Object[]> batch;
+        do {
+            batch = patientRepository.findPhonesWithoutReversedDigitsAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Object[]> rows = batch;
+            updated += transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Object[] row : rows) {
+                    count += patientRepository.setPhoneReversed((Long) row[0], Patient.reverseDigits((String) row[1]));
+                }
+                return count;
+            });
+            lastId = (Long) batch.get(batch.size() - 1)[0];
+        } while (batch.size() == BATCH_SIZE);
+        
+        if (updated > 0) {
+            logger.info("Populated reversed phone digits for {} patients", updated);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Exact age bucketing of the Fenwick tree histogram and its date bounds
+ */
+class AgeHistogramTest {
+    
+    private static final int[] ADULT_SENIOR = { 18, 65 };
+    
+    private PatientIndexes indexes;
+    private AgeHistogram histogram;
+    
+    @BeforeEach
+    void setUp() {
+        indexes = new PatientIndexes(new InsuranceDictionary());
+        histogram = indexes.getAgeHistogram();
+    }
+    
+    @Test
+    void ageChangesOnTheBirthdayNotBefore() {
+        indexes.index(patient(1L, LocalDate.of(2006, 6, 15)));
+        
+        assertArrayEquals(new long[] { 1, 0, 0 }, histogram.countByAge(LocalDate.of(2024, 6, 14), ADULT_SENIOR));
+        assertArrayEquals(new long[] { 0, 1, 0 }, histogram.countByAge(LocalDate.of(2024, 6, 15), ADULT_SENIOR));
+        assertArrayEquals(new long[] { 0, 1, 0 }, histogram.countByAge(LocalDate.of(2024, 6, 16), ADULT_SENIOR));
+        assertEquals(17.0, histogram.averageAge(LocalDate.of(2024, 6, 14)));
+        assertEquals(18.0, histogram.averageAge(LocalDate.of(2024, 6, 15)));
+    }
+    
+    @Test
+    void february29BirthdayTurnsOverOnMarch1InNonLeapYears() {
+        indexes.index(patient(1L, LocalDate.of(2004, 2, 29)));
+        
+        assertArrayEquals(new long[] { 1, 0, 0 }, histogram.countByAge(LocalDate.of(2022, 2, 28), ADULT_SENIOR));
+        assertArrayEquals(new long[] { 0, 1, 0 }, histogram.countByAge(LocalDate.of(2022, 3, 1), ADULT_SENIOR));
+        assertEquals(20.0, histogram.averageAge(LocalDate.of(2024, 2, 29)));
+        assertEquals(19.0, histogram.averageAge(LocalDate.of(2023, 3, 1)));
+    }
+    
+    @Test
+    void bucketsMatchPeriodBetweenForRandomDates() {
+        Random random = new Random(42);
+        LocalDate[] births = new LocalDate[500];
+        for (int i = 0; i < births.length; i++) {
+            births[i] = LocalDate.of(1920, 1, 1).plusDays(random.nextInt(105 * 365));
+            indexes.index(patient((long) i, births[i]));
+        }
+        int[] boundaries = { 1, 18, 31, 45, 65, 80, 100 };
+        
+        for (int t = 0; t < 50; t++) {
+            LocalDate today = LocalDate.of(2020, 1, 1).plusDays(random.nextInt(6 * 365));
+            long[] expected = new long[boundaries.length + 1];
+            long ageSum = 0;
+            for (LocalDate birth : births) {
+                int age = Math.max(0, Period.between(birth, today).getYears());
+                ageSum += age;
+                int bucket = 0;
+                while (bucket < boundaries.length && age >= boundaries[bucket]) {
+                    bucket++;
+                }
+                expected[bucket]++;
+            }
+            assertArrayEquals(expected, histogram.countByAge(today, boundaries), "on " + today);
+            assertEquals((double) ageSum / births.length, histogram.averageAge(today), 1e-9, "on " + today);
+        }
+    }
+    
+    @Test
+    void firstAndLastDayOfTheRangeAreExact() {
+        indexes.index(patient(1L, LocalDate.of(1850, 1, 1)));
+        indexes.index(patient(2L, LocalDate.of(2149, 12, 31)));
+        
+        assertArrayEquals(new long[] { 1, 1 }, histogram.countByAge(LocalDate.of(1999, 1, 1), new int[] { 149 }));
+        assertArrayEquals(new long[] { 2, 0 }, histogram.countByAge(LocalDate.of(1998, 12, 31), new int[] { 149 }));
+        assertArrayEquals(new long[] { 0, 1, 1 }, histogram.countByAge(LocalDate.of(2149, 12, 31), new int[] { 0, 1 }));
+        assertArrayEquals(new long[] { 1, 0, 1 }, histogram.countByAge(LocalDate.of(2149, 12, 30), new int[] { 0, 1 }));
+    }
+    
+    @Test
+    void datesOutsideTheRangeStayBeyondItsEnds() {
+        indexes.index(patient(1L, LocalDate.of(1801, 7, 4)));
+        indexes.index(patient(2L, LocalDate.of(2200, 1, 1)));
+        indexes.index(patient(3L, LocalDate.of(1850, 1, 1)));
+        
+        assertArrayEquals(new long[] { 1, 1, 0, 1 },
+            histogram.countByAge(LocalDate.of(1999, 6, 1), new int[] { 1, 150, 151 }));
+        assertArrayEquals(new long[] { 1, 1, 1 }, histogram.countByAge(LocalDate.of(2000, 1, 1), new int[] { 1, 151 }));
+        assertArrayEquals(new long[] { 1, 2 }, histogram.countByAge(LocalDate.of(2150, 1, 1), new int[] { 1 }));
+        assertArrayEquals(new long[] { 0, 3 }, histogram.countByAge(LocalDate.of(2201, 6, 1), new int[] { 1 }));
+    }
+    
+    @Test
+    void reindexAndRemoveKeepTotalsConsistent() {
+        indexes.index(patient(1L, LocalDate.of(1950, 1, 1)));
+        indexes.index(patient(2L, LocalDate.of(2010, 1, 1)));
+        indexes.index(patient(1L, LocalDate.of(2000, 1, 1)));
+        indexes.index(patient(3L, null));
+        indexes.remove(2L);
+        indexes.remove(99L);
+        
+        LocalDate today = LocalDate.of(2024, 1, 1);
+        assertArrayEquals(new long[] { 0, 1, 0 }, histogram.countByAge(today, ADULT_SENIOR));
+        assertEquals(24.0, histogram.averageAge(today));
+        
+        indexes.remove(1L);
+        assertArrayEquals(new long[] { 0, 0, 0 }, histogram.countByAge(today, ADULT_SENIOR));
+        assertEquals(0.0, histogram.averageAge(today));
+    }
+    
+    // Helper methods
+    private static Patient patient(Long id, LocalDate dateOfBirth) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setDateOfBirth(dateOfBirth);
+        return patient;
+    }
+}
@@ -0,0 +1,116 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Birthday windows across the end of the year and February 29
+ */
+class BirthdayIndexTest {
+    
+    private static final long DEC_30 = 1L;
+    private static final long DEC_31 = 2L;
+    private static final long JAN_1 = 3L;
+    private static final long JAN_2 = 4L;
+    private static final long FEB_28 = 5L;
+    private static final long FEB_29 = 6L;
+    private static final long MAR_1 = 7L;
+    
+    private PatientIndexes indexes;
+    private BirthdayIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        indexes = new PatientIndexes(new InsuranceDictionary());
+        index = indexes.getBirthdayIndex();
+        indexes.index(patient(DEC_30, LocalDate.of(1970, 12, 30)));
+        indexes.index(patient(DEC_31, LocalDate.of(1985, 12, 31)));
+        indexes.index(patient(JAN_1, LocalDate.of(2000, 1, 1)));
+        indexes.index(patient(JAN_2, LocalDate.of(1962, 1, 2)));
+        indexes.index(patient(FEB_28, LocalDate.of(1990, 2, 28)));
+        indexes.index(patient(FEB_29, LocalDate.of(1988, 2, 29)));
+        indexes.index(patient(MAR_1, LocalDate.of(1977, 3, 1)));
+        indexes.index(patient(8L, null));
+    }
+    
+    @Test
+    void windowEndingOnDecember31DoesNotWrap() {
+        assertEquals(Arrays.asList(DEC_30, DEC_31), index.findInWindow(LocalDate.of(2023, 12, 30), 2));
+        assertEquals(List.of(DEC_31), index.findInWindow(LocalDate.of(2023, 12, 31), 1));
+    }
+    
+    @Test
+    void windowAcrossDecember31ListsDecemberBeforeJanuary() {
+        assertEquals(Arrays.asList(DEC_31, JAN_1), index.findInWindow(LocalDate.of(2023, 12, 31), 2));
+        assertEquals(Arrays.asList(DEC_30, DEC_31, JAN_1, JAN_2),
+            index.findInWindow(LocalDate.of(2023, 12, 29), 5));
+        assertEquals(Arrays.asList(DEC_31, JAN_1, JAN_2, FEB_28, FEB_29),
+            index.findInWindow(LocalDate.of(2022, 12, 31), 60));
+    }
+    
+    @Test
+    void windowStartingJanuary1DoesNotReachBackIntoDecember() {
+        assertEquals(Arrays.asList(JAN_1, JAN_2), index.findInWindow(LocalDate.of(2024, 1, 1), 2));
+    }
+    
+    @Test
+    void february29BirthdaysFallOnFebruary28InNonLeapYears() {
+        assertEquals(Arrays.asList(FEB_28, FEB_29), index.findInWindow(LocalDate.of(2023, 2, 28), 1));
+        assertEquals(Arrays.asList(FEB_28, FEB_29), index.findInWindow(LocalDate.of(2023, 2, 27), 2));
+        assertEquals(List.of(MAR_1), index.findInWindow(LocalDate.of(2023, 3, 1), 1));
+    }
+    
+    @Test
+    void february29BirthdaysFallOnFebruary29InLeapYears() {
+        assertEquals(List.of(FEB_28), index.findInWindow(LocalDate.of(2024, 2, 28), 1));
+        assertEquals(List.of(FEB_29), index.findInWindow(LocalDate.of(2024, 2, 29), 1));
+        assertEquals(Arrays.asList(FEB_29, MAR_1), index.findInWindow(LocalDate.of(2024, 2, 29), 2));
+        assertEquals(List.of(MAR_1), index.findInWindow(LocalDate.of(2024, 3, 1), 1));
+    }
+    
+    @Test
+    void windowAcrossDecember31IntoFebruary28OfNonLeapYear() {
+        assertEquals(Arrays.asList(DEC_30, DEC_31, JAN_1, JAN_2, FEB_28, FEB_29),
+            index.findInWindow(LocalDate.of(2022, 12, 30), 61));
+        assertEquals(Arrays.asList(DEC_30, DEC_31, JAN_1, JAN_2, FEB_28),
+            index.findInWindow(LocalDate.of(2023, 12, 30), 61));
+    }
+    
+    @Test
+    void yearLongWindowListsEveryPatientOnceStartingFromTheFirstDay() {
+        List<Long> all = Arrays.asList(MAR_1, DEC_30, DEC_31, JAN_1, JAN_2, FEB_28, FEB_29);
+        
+        assertEquals(all, index.findInWindow(LocalDate.of(2022, 3, 1), 365));
+        assertEquals(all, index.findInWindow(LocalDate.of(2023, 3, 1), 366));
+        assertEquals(all, index.findInWindow(LocalDate.of(2023, 3, 1), 1000));
+        assertEquals(Arrays.asList(JAN_2, FEB_28, FEB_29, MAR_1, DEC_30, DEC_31, JAN_1),
+            index.findInWindow(LocalDate.of(2023, 1, 2), 365));
+    }
+    
+    @Test
+    void reindexMovesAndRemoveDropsPatient() {
+        indexes.index(patient(JAN_1, LocalDate.of(2000, 12, 30)));
+        indexes.remove(DEC_31);
+        
+        assertEquals(new HashSet<>(Arrays.asList(DEC_30, JAN_1)),
+            new HashSet<>(index.findInWindow(LocalDate.of(2023, 12, 30), 3)));
+        assertTrue(index.findInWindow(LocalDate.of(2023, 12, 30), 0).isEmpty());
+    }
+    
+    // Helper methods
+    private static Patient patient(Long id, LocalDate dateOfBirth) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setDateOfBirth(dateOfBirth);
+        return patient;
+    }
+}
@@ -0,0 +1,61 @@
+package com.medicare.hospital.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Provider name folding and lookups of the insurance dictionary
+ */
+class InsuranceDictionaryTest {
+    
+    private InsuranceDictionary dictionary;
+    
+    @BeforeEach
+    void setUp() {
+        dictionary = new InsuranceDictionary();
+        ReflectionTestUtils.setField(dictionary, "aliasSpec",
+            "BCBS:Blue Cross Blue Shield, UHC : UnitedHealthcare,United Healthcare:UnitedHealthcare");
+        dictionary.loadAliases();
+    }
+    
+    @Test
+    void canonicalKeyIgnoresCasePunctuationAndCorporateSuffixes() {
+        assertEquals("aetna", dictionary.canonicalKey("Aetna"));
+        assertEquals("aetna", dictionary.canonicalKey("  AETNA, Inc. "));
+        assertEquals("aetna", dictionary.canonicalKey("Aetna Insurance Company"));
+        assertEquals("kaiser permanente", dictionary.canonicalKey("Kaiser-Permanente LLC"));
+        assertEquals("blue cross blue shield", dictionary.canonicalKey("Blue Cross & Blue Shield"));
+        assertEquals("blue cross blue shield", dictionary.canonicalKey("blue cross and blue shield corp"));
+    }
+    
+    @Test
+    void canonicalKeyOfBlankNameIsEmpty() {
+        assertEquals("", dictionary.canonicalKey(null));
+        assertEquals("", dictionary.canonicalKey("   "));
+        assertEquals("", dictionary.canonicalKey("Insurance Inc."));
+    }
+    
+    @Test
+    void aliasesFoldIntoTheirProvider() {
+        assertEquals("blue cross blue shield", dictionary.canonicalKey("BCBS"));
+        assertEquals("blue cross blue shield", dictionary.canonicalKey("bcbs inc"));
+        assertEquals("unitedhealthcare", dictionary.canonicalKey("UHC"));
+        assertEquals("unitedhealthcare", dictionary.canonicalKey("United Healthcare"));
+        assertEquals("unitedhealthcare", dictionary.canonicalKey("UnitedHealthcare Insurance Co"));
+    }
+    
+    @Test
+    void spellingsAndAliasesShareOneProvider() {
+        int provider = dictionary.intern("BCBS");
+        
+        assertEquals(provider, dictionary.intern("Blue Cross & Blue Shield, Inc."));
+        assertEquals(OptionalInt.of(provider), dictionary.idOf("blue cross blue shield"));
+        assertEquals("Blue Cross Blue Shield", dictionary.names().get(provider));
+        assertEquals(InsuranceDictionary.NONE, dictionary.intern(" "));
+    }
+}
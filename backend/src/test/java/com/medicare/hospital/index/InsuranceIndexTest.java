@@ -0,0 +1,76 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Patients per provider of the insurance index
+ */
+class InsuranceIndexTest {
+    
+    private InsuranceDictionary dictionary;
+    private PatientIndexes indexes;
+    private InsuranceIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        dictionary = new InsuranceDictionary();
+        ReflectionTestUtils.setField(dictionary, "aliasSpec", "BCBS:Blue Cross Blue Shield,UHC:UnitedHealthcare");
+        dictionary.loadAliases();
+        indexes = new PatientIndexes(dictionary);
+        index = indexes.getInsuranceIndex();
+    }
+    
+    @Test
+    void findPatientsMatchesCanonicalKeyLikeIdOf() {
+        indexes.index(patient(1L, "Blue Cross Blue Shield"));
+        indexes.index(patient(2L, "BCBS"));
+        indexes.index(patient(3L, "Blue Cross"));
+        indexes.index(patient(4L, "UHC"));
+        indexes.index(patient(5L, null));
+        
+        assertEquals(Arrays.asList(1L, 2L), index.findPatients("blue cross & blue shield"));
+        assertEquals(Arrays.asList(1L, 2L), index.findPatients("BCBS"));
+        assertEquals(List.of(3L), index.findPatients("Blue Cross"));
+        assertEquals(List.of(4L), index.findPatients("UnitedHealthcare"));
+        assertTrue(index.findPatients("Blue").isEmpty());
+        assertTrue(index.findPatients("").isEmpty());
+        assertFalse(dictionary.idOf("Blue").isPresent());
+        assertEquals(1, index.uninsuredCount());
+    }
+    
+    @Test
+    void reindexMovesPatientBetweenProviders() {
+        indexes.index(patient(1L, "Aetna"));
+        indexes.index(patient(2L, "Aetna"));
+        indexes.index(patient(3L, "Cigna"));
+        indexes.index(patient(1L, "Cigna"));
+        indexes.index(patient(2L, " "));
+        indexes.remove(3L);
+        
+        assertEquals(List.of(1L), index.findPatients("Cigna"));
+        assertTrue(index.findPatients("Aetna").isEmpty());
+        assertEquals(List.of("Cigna"), index.providerCounts().stream()
+            .map(InsuranceIndex.ProviderCount::getName)
+            .collect(Collectors.toList()));
+        assertEquals(1, index.uninsuredCount());
+    }
+    
+    // Helper methods
+    private static Patient patient(Long id, String insurance) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setInsurance(insurance);
+        return patient;
+    }
+}
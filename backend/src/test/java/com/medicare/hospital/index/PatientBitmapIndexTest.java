@@ -0,0 +1,220 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Age and date ranges, month edges and combined criteria of the bitmap index
+ */
+class PatientBitmapIndexTest {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 15);
+    
+    private PatientIndexes indexes;
+    private final List<Patient> patients = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        indexes = new PatientIndexes(new InsuranceDictionary());
+    }
+    
+    @Test
+    void minAgeIncludesPatientsWhoseBirthdayIsToday() {
+        add(1L, LocalDate.of(2006, 3, 14));
+        add(2L, LocalDate.of(2006, 3, 15));
+        add(3L, LocalDate.of(2006, 3, 16));
+        
+        assertEquals(Arrays.asList(1L, 2L), ids(new PatientCriteria().minAge(18)));
+        assertEquals(List.of(3L), ids(new PatientCriteria().maxAge(17)));
+    }
+    
+    @Test
+    void maxAgeIncludesPatientsUntilTheDayBeforeTheirNextBirthday() {
+        add(1L, LocalDate.of(1959, 3, 15));
+        add(2L, LocalDate.of(1959, 3, 16));
+        add(3L, LocalDate.of(1960, 3, 15));
+        
+        assertEquals(Arrays.asList(2L, 3L), ids(new PatientCriteria().maxAge(64)));
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(new PatientCriteria().minAge(64).maxAge(65)));
+        assertEquals(Arrays.asList(2L, 3L), ids(new PatientCriteria().minAge(64).maxAge(64)));
+        assertTrue(ids(new PatientCriteria().minAge(65).maxAge(64)).isEmpty());
+    }
+    
+    @Test
+    void exactAgeOnFebruary29Birthdays() {
+        add(1L, LocalDate.of(2004, 2, 29));
+        
+        assertEquals(List.of(1L), ids(LocalDate.of(2022, 3, 1), new PatientCriteria().minAge(18)));
+        assertTrue(ids(LocalDate.of(2022, 2, 28), new PatientCriteria().minAge(18)).isEmpty());
+        assertEquals(List.of(1L), ids(LocalDate.of(2024, 2, 29), new PatientCriteria().minAge(20).maxAge(20)));
+    }
+    
+    @Test
+    void registrationRangesStartOnMonthEdges() {
+        add(1L, LocalDate.of(2023, 12, 31));
+        add(2L, LocalDate.of(2024, 1, 1));
+        add(3L, LocalDate.of(2024, 1, 31));
+        add(4L, LocalDate.of(2024, 2, 1));
+        add(5L, LocalDate.of(2024, 2, 29));
+        add(6L, LocalDate.of(2024, 3, 1));
+        
+        assertEquals(Arrays.asList(2L, 3L, 4L, 5L, 6L), registeredSince(LocalDate.of(2024, 1, 1)));
+        assertEquals(Arrays.asList(3L, 4L, 5L, 6L), registeredSince(LocalDate.of(2024, 1, 31)));
+        assertEquals(Arrays.asList(4L, 5L, 6L), registeredSince(LocalDate.of(2024, 2, 1)));
+        assertEquals(Arrays.asList(5L, 6L), registeredSince(LocalDate.of(2024, 2, 29)));
+        assertEquals(List.of(6L), registeredSince(LocalDate.of(2024, 3, 1)));
+        assertTrue(registeredSince(LocalDate.of(2024, 3, 2)).isEmpty());
+    }
+    
+    @Test
+    void birthDateRangesWithinOneMonthAndAcrossMonthEdges() {
+        // On 2024-03-15 a patient is exactly 30 when born 1993-03-16 .. 1994-03-15
+        add(1L, LocalDate.of(1993, 3, 15));
+        add(2L, LocalDate.of(1993, 3, 16));
+        add(3L, LocalDate.of(1993, 3, 31));
+        add(4L, LocalDate.of(1993, 4, 1));
+        add(5L, LocalDate.of(1994, 2, 28));
+        add(6L, LocalDate.of(1994, 3, 1));
+        add(7L, LocalDate.of(1994, 3, 15));
+        add(8L, LocalDate.of(1994, 3, 16));
+        
+        assertEquals(Arrays.asList(2L, 3L, 4L, 5L, 6L, 7L), ids(new PatientCriteria().minAge(30).maxAge(30)));
+        assertEquals(Arrays.asList(1L, 2L, 3L),
+            ids(LocalDate.of(2024, 3, 31), new PatientCriteria().minAge(31).maxAge(31)));
+        assertEquals(Arrays.asList(4L, 5L, 6L, 7L, 8L),
+            ids(LocalDate.of(2024, 3, 31), new PatientCriteria().minAge(30).maxAge(30)));
+    }
+    
+    @Test
+    void combinedCriteriaIntersect() {
+        add(1L, LocalDate.of(1980, 5, 1), Patient.Gender.FEMALE, "Aetna", LocalDate.of(2024, 1, 10));
+        add(2L, LocalDate.of(1980, 5, 1), Patient.Gender.MALE, "Aetna", LocalDate.of(2024, 1, 10));
+        add(3L, LocalDate.of(2010, 5, 1), Patient.Gender.FEMALE, "Aetna Inc.", LocalDate.of(2024, 1, 10));
+        add(4L, LocalDate.of(1980, 5, 1), Patient.Gender.FEMALE, null, LocalDate.of(2024, 1, 10));
+        add(5L, LocalDate.of(1980, 5, 1), Patient.Gender.FEMALE, "AETNA", LocalDate.of(2023, 1, 10));
+        add(6L, null, Patient.Gender.FEMALE, "Aetna", LocalDate.of(2024, 1, 10));
+        
+        PatientCriteria criteria = new PatientCriteria().gender(Patient.Gender.FEMALE).minAge(18).insurance("aetna")
+            .registeredSince(LocalDate.of(2024, 1, 1));
+        assertEquals(List.of(1L), ids(criteria));
+        assertEquals(Arrays.asList(1L, 3L, 5L, 6L),
+            ids(new PatientCriteria().gender(Patient.Gender.FEMALE).insurance("Aetna")));
+        assertEquals(List.of(4L), ids(new PatientCriteria().withoutInsurance(true).maxAge(60)));
+        assertTrue(ids(new PatientCriteria().insurance("Cigna")).isEmpty());
+        assertEquals(6, indexes.getBitmapIndex().find(new PatientCriteria(), TODAY, 0, 100).getCount());
+    }
+    
+    @Test
+    void randomCriteriaMatchBruteForce() {
+        Random random = new Random(7);
+        Patient.Gender[] genders = Patient.Gender.values();
+        String[] insurers = { "Aetna", "Cigna", null };
+        for (long id = 1; id <= 400; id++) {
+            LocalDate birthDate = random.nextInt(20) == 0 ? null
+                : LocalDate.of(1930, 1, 1).plusDays(random.nextInt(93 * 365));
+            LocalDate registered = random.nextInt(20) == 0 ? null
+                : LocalDate.of(2022, 1, 1).plusDays(random.nextInt(800));
+            add(id, birthDate, genders[random.nextInt(genders.length)], insurers[random.nextInt(insurers.length)],
+                registered);
+        }
+        
+        for (int t = 0; t < 300; t++) {
+            LocalDate today = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(400));
+            Integer minAge = random.nextBoolean() ? random.nextInt(90) : null;
+            Integer maxAge = random.nextBoolean() ? random.nextInt(90) : null;
+            LocalDate since = random.nextBoolean() ? LocalDate.of(2022, 1, 1).plusDays(random.nextInt(800)) : null;
+            Patient.Gender gender = random.nextInt(3) == 0 ? genders[random.nextInt(genders.length)] : null;
+            PatientCriteria criteria = new PatientCriteria().minAge(minAge).maxAge(maxAge).registeredSince(since)
+                .gender(gender);
+            
+            Predicate<Patient> matches = patient -> {
+                if (gender != null && patient.getGender() != gender) {
+                    return false;
+                }
+                if (since != null && (patient.getCreatedAt() == null
+                        || patient.getCreatedAt().toLocalDate().isBefore(since))) {
+                    return false;
+                }
+                if (minAge == null && maxAge == null) {
+                    return true;
+                }
+                if (patient.getDateOfBirth() == null) {
+                    return false;
+                }
+                int age = Period.between(patient.getDateOfBirth(), today).getYears();
+                return (minAge == null || age >= minAge) && (maxAge == null || age <= maxAge);
+            };
+            List<Long> expected = patients.stream().filter(matches).map(Patient::getId).collect(Collectors.toList());
+            assertEquals(expected, ids(today, criteria),
+                "on " + today + " age " + minAge + ".." + maxAge + " since " + since);
+        }
+    }
+    
+    @Test
+    void pagesSeekToTheirFirstId() {
+        for (long id = 1; id <= 10; id++) {
+            add(id * 3, LocalDate.of(1990, 1, 1));
+        }
+        
+        PatientBitmapIndex.Result page = indexes.getBitmapIndex().find(new PatientCriteria(), TODAY, 4, 3);
+        assertEquals(Arrays.asList(15L, 18L, 21L), page.getIds());
+        assertEquals(10, page.getCount());
+        assertEquals(List.of(30L), indexes.getBitmapIndex().find(new PatientCriteria(), TODAY, 9, 3).getIds());
+        assertTrue(indexes.getBitmapIndex().find(new PatientCriteria(), TODAY, 10, 3).getIds().isEmpty());
+    }
+    
+    @Test
+    void reindexMovesPatientBetweenMonths() {
+        add(1L, LocalDate.of(1990, 1, 31));
+        add(1L, LocalDate.of(1990, 2, 1));
+        
+        assertTrue(ids(new PatientCriteria().registeredSince(LocalDate.of(1990, 1, 1)).maxAge(34)).contains(1L));
+        assertTrue(registeredSince(LocalDate.of(1990, 2, 2)).isEmpty());
+        assertEquals(List.of(1L), registeredSince(LocalDate.of(1990, 2, 1)));
+        
+        indexes.remove(1L);
+        assertTrue(registeredSince(LocalDate.of(1990, 1, 1)).isEmpty());
+    }
+    
+    // Helper methods
+    private void add(Long id, LocalDate date) {
+        add(id, date, Patient.Gender.OTHER, null, date);
+    }
+    
+    private void add(Long id, LocalDate birthDate, Patient.Gender gender, String insurance, LocalDate registered) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setDateOfBirth(birthDate);
+        patient.setGender(gender);
+        patient.setInsurance(insurance);
+        patient.setCreatedAt(registered == null ? null : registered.atTime(9, 30));
+        patients.removeIf(existing -> existing.getId().equals(id));
+        patients.add(patient);
+        indexes.index(patient);
+    }
+    
+    private List<Long> ids(PatientCriteria criteria) {
+        return ids(TODAY, criteria);
+    }
+    
+    private List<Long> ids(LocalDate today, PatientCriteria criteria) {
+        return indexes.getBitmapIndex().find(criteria, today, 0, Integer.MAX_VALUE).getIds();
+    }
+    
+    private List<Long> registeredSince(LocalDate since) {
+        return ids(new PatientCriteria().registeredSince(since));
+    }
+}
@@ -0,0 +1,148 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rebuilding next to the indexes in use while writes keep committing
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientIndexManagerTest {
+    
+    @Mock
+    private PatientRepository patientRepository;
+    
+    @Spy
+    private InsuranceDictionary insuranceDictionary = new InsuranceDictionary();
+    
+    @InjectMocks
+    private PatientIndexManager indexManager;
+    
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(indexManager, "rebuildBatchSize", 1000);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        writer.shutdownNow();
+    }
+    
+    @Test
+    void indexesAreMissingUntilTheFirstBuild() {
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+            .thenReturn(Arrays.asList(patient(1L, "Ada", Patient.Gender.FEMALE)));
+        
+        assertNull(indexManager.getIndexes());
+        indexManager.rebuild();
+        
+        assertEquals(Long.valueOf(1L), indexManager.getIndexes().getEmailIndex().findOwner("ada@example.com"));
+    }
+    
+    @Test
+    void writesDuringRebuildDoNotWaitAndAreReplayedOntoTheNewIndexes() {
+        List<Patient> rows = Arrays.asList(patient(1L, "Ada", Patient.Gender.FEMALE),
+            patient(2L, "Bob", Patient.Gender.MALE));
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+            .thenReturn(rows)
+            .thenAnswer(invocation -> {
+                // Commit from another thread while the rebuild is reading; it must not block
+                writer.submit(() -> {
+                    Patient renamed = patient(1L, "Ada", Patient.Gender.OTHER);
+                    indexManager.onPatientChanged(PatientChangedEvent.saved(renamed));
+                    indexManager.onPatientChanged(PatientChangedEvent.deleted(2L));
+                    for (long id = 100; id < 200; id++) {
+                        indexManager.onPatientChanged(PatientChangedEvent.saved(patient(id, "P" + id, null)));
+                    }
+                }).get(5, TimeUnit.SECONDS);
+                // The indexes in use have already applied the writes
+                assertNull(indexManager.getIndexes().getEmailIndex().findOwner("bob@example.com"));
+                return rows;
+            });
+        indexManager.rebuild();
+        PatientIndexes before = indexManager.getIndexes();
+        
+        indexManager.rebuild();
+        
+        PatientIndexes after = indexManager.getIndexes();
+        assertNotSame(before, after);
+        PatientStatisticsAggregator statistics = after.getStatisticsAggregator();
+        assertEquals(101, statistics.getTotal());
+        assertEquals(0, statistics.getCount(Patient.Gender.MALE));
+        assertEquals(0, statistics.getCount(Patient.Gender.FEMALE));
+        assertEquals(1, statistics.getCount(Patient.Gender.OTHER));
+        assertNull(after.getEmailIndex().findOwner("bob@example.com"));
+        assertNotNull(after.getEmailIndex().findOwner("p199@example.com"));
+    }
+    
+    @Test
+    void persistentStatisticsDriftRebuildsTheIndexes() {
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+            .thenReturn(Arrays.asList(patient(1L, "Ada", Patient.Gender.FEMALE)))
+            .thenReturn(Arrays.asList(patient(1L, "Ada", Patient.Gender.FEMALE),
+                patient(2L, "Bob", Patient.Gender.MALE)));
+        when(patientRepository.countGroupByGender()).thenReturn(Arrays.asList(
+            new Object[] { Patient.Gender.FEMALE, 1L }, new Object[] { Patient.Gender.MALE, 1L }));
+        indexManager.rebuild();
+        PatientIndexes before = indexManager.getIndexes();
+        
+        indexManager.reconcileStatistics();
+        assertSame(before, indexManager.getIndexes());
+        indexManager.reconcileStatistics();
+        
+        assertNotSame(before, indexManager.getIndexes());
+        assertEquals(2, indexManager.getIndexes().getStatisticsAggregator().getTotal());
+    }
+    
+    @Test
+    void patientIdBeyondIntRangeDisablesTheIndexes() {
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+        indexManager.rebuild();
+        
+        indexManager.onPatientChanged(PatientChangedEvent.deleted(Integer.MAX_VALUE + 1L));
+        
+        assertNull(indexManager.getIndexes());
+    }
+    
+    // Helper methods
+    private static Patient patient(Long id, String firstName, Patient.Gender gender) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setFirstName(firstName);
+        patient.setLastName("Test");
+        patient.setEmail(firstName.toLowerCase() + "@example.com");
+        patient.setGender(gender);
+        patient.setDateOfBirth(LocalDate.of(1980, 5, 17));
+        return patient;
+    }
+}
@@ -0,0 +1,106 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Row lookup, dense deletion and growth of the shared patient rows
+ */
+class PatientRowsTest {
+    
+    @Test
+    void putRewritesTheExistingRow() {
+        PatientRows rows = new PatientRows();
+        int row = rows.put(patient(7L, "Ada"), 3);
+        
+        assertEquals(row, rows.put(patient(7L, "Ida"), InsuranceDictionary.NONE));
+        assertEquals(1, rows.size());
+        assertEquals("Ida", rows.firstName(row));
+        assertEquals(InsuranceDictionary.NONE, rows.insuranceCode(row));
+        assertEquals(PatientRows.NO_ROW, rows.rowOf(8L));
+    }
+    
+    @Test
+    void removeMovesTheLastRowIntoTheGap() {
+        PatientRows rows = new PatientRows();
+        rows.put(patient(1L, "Ada"), 0);
+        rows.put(patient(2L, "Bob"), 1);
+        rows.put(patient(3L, "Cy"), 2);
+        
+        rows.remove(rows.rowOf(1L));
+        
+        assertEquals(2, rows.size());
+        assertEquals(PatientRows.NO_ROW, rows.rowOf(1L));
+        assertEquals(0, rows.rowOf(3L));
+        assertEquals("Cy", rows.firstName(0));
+        assertEquals(2, rows.insuranceCode(0));
+        assertEquals(1, rows.rowOf(2L));
+    }
+    
+    @Test
+    void lookupsMatchAMapAcrossRandomPutsRemovesAndGrowth() {
+        PatientRows rows = new PatientRows();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            // Mostly consecutive IDs with some far apart, as sequences and imports produce
+            long id = random.nextInt(10) == 0 ? random.nextInt(Integer.MAX_VALUE) + 1L : random.nextInt(5000) + 1L;
+            if (random.nextInt(3) == 0) {
+                int row = rows.rowOf(id);
+                if (row != PatientRows.NO_ROW) {
+                    rows.remove(row);
+                }
+                expected.remove(id);
+            } else {
+                String name = "P" + i;
+                rows.put(patient(id, name), i);
+                expected.put(id, name);
+            }
+        }
+        
+        assertEquals(expected.size(), rows.size());
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            int row = rows.rowOf(entry.getKey());
+            assertEquals(entry.getKey().longValue(), rows.id(row));
+            assertEquals(entry.getValue(), rows.firstName(row));
+        }
+        List<Long> stored = new ArrayList<>();
+        for (int row = 0; row < rows.size(); row++) {
+            stored.add(rows.id(row));
+            assertEquals(row, rows.rowOf(rows.id(row)));
+        }
+        assertEquals(expected.keySet(), new HashSet<>(stored));
+    }
+    
+    @Test
+    void missingValuesUseTheirMarkers() {
+        PatientRows rows = new PatientRows();
+        Patient patient = new Patient();
+        patient.setId(1L);
+        int row = rows.put(patient, InsuranceDictionary.NONE);
+        
+        assertEquals(PatientRows.NO_DATE, rows.birthDay(row));
+        assertEquals(PatientRows.NO_DATE, rows.registeredDay(row));
+        assertEquals(PatientRows.NO_GENDER, rows.gender(row));
+    }
+    
+    // Helper methods
+    private static Patient patient(Long id, String firstName) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setFirstName(firstName);
+        patient.setGender(Patient.Gender.FEMALE);
+        patient.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        return patient;
+    }
+}
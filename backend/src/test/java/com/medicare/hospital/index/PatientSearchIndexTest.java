@@ -0,0 +1,84 @@
+package com.medicare.hospital.index;
+
+import com.medicare.hospital.dto.NameSuggestion;
+import com.medicare.hospital.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ranking and maintenance of the trigram search index
+ */
+class PatientSearchIndexTest {
+    
+    private PatientIndexes indexes;
+    private PatientSearchIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        indexes = new PatientIndexes(new InsuranceDictionary());
+        index = indexes.getSearchIndex();
+    }
+    
+    @Test
+    void exactMatchRanksBeforePrefixBeforeSubstring() {
+        indexes.index(patient(1L, "Annabel", "Lee", "al@example.com"));
+        indexes.index(patient(2L, "Ann", "Smith", "as@example.com"));
+        indexes.index(patient(3L, "Joanna", "Ng", "jn@example.com"));
+        indexes.index(patient(4L, "Bob", "Brown", "bb@example.com"));
+        
+        assertEquals(Arrays.asList(2L, 1L, 3L), index.search("ann", 10));
+        assertEquals(Arrays.asList(2L, 1L), index.search("ANN", 2));
+    }
+    
+    @Test
+    void updateAndDeleteDropTheOldTerms() {
+        indexes.index(patient(1L, "Margaret", "Hughes", "mh@example.com"));
+        indexes.index(patient(2L, "Marge", "Simpson", "ms@example.com"));
+        
+        indexes.index(patient(1L, "Peggy", "Hughes", "ph@example.com"));
+        indexes.remove(2L);
+        
+        assertTrue(index.search("marg", 10).isEmpty());
+        assertEquals(List.of(1L), index.search("pegg", 10));
+        assertEquals(List.of(1L), index.search("hughes", 10));
+        assertEquals(1, index.size());
+    }
+    
+    @Test
+    void matchesEmailAndIgnoresNullFields() {
+        indexes.index(patient(1L, null, "Okafor", "chioma.okafor@example.com"));
+        indexes.index(patient(2L, "Chi", null, null));
+        
+        assertEquals(List.of(1L), index.search("chioma", 10));
+        assertTrue(index.search("nobody", 10).isEmpty());
+    }
+    
+    @Test
+    void queriesShorterThanATrigramAreLeftToTheTypeaheadIndex() {
+        indexes.index(patient(1L, "Al", "Xu", "ax@example.com"));
+        indexes.index(patient(2L, "Alma", "Ng", "an@example.com"));
+        
+        assertTrue(index.search("al", 10).isEmpty());
+        assertTrue(index.search(" x ", 10).isEmpty());
+        assertEquals(Arrays.asList(1L, 2L), indexes.getTypeaheadIndex().suggest("al", 10).stream()
+            .map(NameSuggestion::getId)
+            .collect(Collectors.toList()));
+    }
+    
+    // Helper methods
+    private static Patient patient(Long id, String firstName, String lastName, String email) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setFirstName(firstName);
+        patient.setLastName(lastName);
+        patient.setEmail(email);
+        return patient;
+    }
+}
@@ -0,0 +1,115 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.dto.DeduplicationJob;
+import com.medicare.hospital.dto.DuplicateCandidate;
+import com.medicare.hospital.dto.PatientSummary;
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Blocking and scoring of the duplicate detection job
+ */
+@ExtendWith(MockitoExtension.class)
+class DuplicateDetectionServiceTest {
+    
+    private static final Set<DeduplicationJob.State> FINISHED = EnumSet.of(
+        DeduplicationJob.State.COMPLETED, DeduplicationJob.State.CANCELLED, DeduplicationJob.State.FAILED);
+    
+    @Mock
+    private PatientRepository patientRepository;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @InjectMocks
+    private DuplicateDetectionService duplicateDetectionService;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(duplicateDetectionService, "minScore", 0.85);
+        ReflectionTestUtils.setField(duplicateDetectionService, "maxBlockSize", 1000);
+        ReflectionTestUtils.setField(duplicateDetectionService, "maxCandidates", 1000);
+        ReflectionTestUtils.setField(duplicateDetectionService, "parallelism", 1);
+        ReflectionTestUtils.setField(duplicateDetectionService, "maxPageSize", 100);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        duplicateDetectionService.shutdown();
+    }
+    
+    @Test
+    void findsPatientWithFirstAndLastNameSwapped() throws InterruptedException {
+        LocalDate birthDate = LocalDate.of(1975, 6, 14);
+        List<PatientSummary> patients = Arrays.asList(
+            summary(1L, "Martha", "Keller", "mkeller@example.org", birthDate),
+            summary(2L, "Keller", "Martha", "m.keller@example.com", birthDate),
+            summary(3L, "Maria", "Kowalski", "mk@example.net", birthDate));
+        
+        List<DuplicateCandidate> candidates = run(patients);
+        
+        assertEquals(1, candidates.size());
+        assertEquals(1L, candidates.get(0).getPatientId());
+        assertEquals(2L, candidates.get(0).getDuplicateId());
+        assertTrue(candidates.get(0).getMatchedOn().contains(DuplicateCandidate.Field.FIRST_NAME));
+        assertTrue(candidates.get(0).getMatchedOn().contains(DuplicateCandidate.Field.LAST_NAME));
+    }
+    
+    @Test
+    void pairSharingEveryBlockingKeyIsReportedOnce() throws InterruptedException {
+        LocalDate birthDate = LocalDate.of(1980, 1, 2);
+        List<PatientSummary> patients = Arrays.asList(
+            summary(1L, "Robert", "Smith", "rsmith@example.org", birthDate),
+            summary(2L, "Rupert", "Smyth", "rsmith@example.org", birthDate));
+        patients.forEach(patient -> patient.setPhone("+1 555 123 4567"));
+        
+        List<DuplicateCandidate> candidates = run(patients);
+        
+        assertEquals(1, candidates.size());
+        assertEquals(2L, candidates.get(0).getDuplicateId());
+    }
+    
+    // Helper methods
+    private List<DuplicateCandidate> run(List<PatientSummary> patients) throws InterruptedException {
+        when(patientRepository.count()).thenReturn((long) patients.size());
+        when(patientRepository.streamAllSummaries()).thenReturn(patients.stream());
+        when(patientRepository.findSummariesByIdIn(any())).thenAnswer(invocation ->
+            patients.stream().filter(patient -> invocation.<Collection<Long>>getArgument(0)
+                .contains(patient.getId())).collect(Collectors.toList()));
+        
+        duplicateDetectionService.start();
+        while (!FINISHED.contains(duplicateDetectionService.getStatus().getState())) {
+            Thread.sleep(10);
+        }
+        assertEquals(DeduplicationJob.State.COMPLETED, duplicateDetectionService.getStatus().getState());
+        return duplicateDetectionService.findCandidates(0.85, PageRequest.of(0, 100)).getContent();
+    }
+    
+    private static PatientSummary summary(Long id, String firstName, String lastName, String email,
+                                          LocalDate birthDate) {
+        return new PatientSummary(id, firstName, lastName, email, null, birthDate, Patient.Gender.FEMALE, null);
+    }
+}
@@ -0,0 +1,110 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.dto.CursorPage;
+import com.medicare.hospital.dto.PatientChange;
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.repository.PatientRepository;
+import com.medicare.hospital.repository.PatientTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cursor handling of the change feed when there is nothing to report
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientChangeFeedServiceTest {
+    
+    private static final long SETTLE_MILLIS = 5000;
+    
+    @Mock
+    private PatientRepository patientRepository;
+    
+    @Mock
+    private PatientTombstoneRepository tombstoneRepository;
+    
+    @InjectMocks
+    private PatientChangeFeedService changeFeedService;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(changeFeedService, "maxPageSize", 100);
+        ReflectionTestUtils.setField(changeFeedService, "settleMillis", SETTLE_MILLIS);
+        ReflectionTestUtils.setField(changeFeedService, "retentionDays", 30);
+    }
+    
+    @Test
+    void initialSyncOfEmptyRegistryReturnsCursorThatCanBePolled() {
+        CursorPage<PatientChange> initial = changeFeedService.findChanges(null, 10);
+        
+        assertTrue(initial.getContent().isEmpty());
+        assertFalse(initial.isHasNext());
+        assertSettled(initial.getNextCursor());
+        assertDoesNotThrow(() -> changeFeedService.findChanges(initial.getNextCursor(), 10));
+    }
+    
+    @Test
+    void quietPollMovesCursorToSettleHorizon() {
+        String cursor = cursorAt(LocalDateTime.now().minusDays(20), 7L);
+        
+        CursorPage<PatientChange> quiet = changeFeedService.findChanges(cursor, 10);
+        
+        assertTrue(quiet.getContent().isEmpty());
+        assertSettled(quiet.getNextCursor());
+    }
+    
+    @Test
+    void cursorInFullSliceStaysAtLastChange() {
+        LocalDateTime lastChange = LocalDateTime.now().minusDays(20);
+        Patient first = new Patient();
+        first.setId(1L);
+        first.setCreatedAt(lastChange);
+        first.setUpdatedAt(lastChange);
+        Patient second = new Patient();
+        second.setId(2L);
+        second.setCreatedAt(lastChange);
+        second.setUpdatedAt(lastChange);
+        when(patientRepository.findChangedAfter(any(), eq(0L), any(), any()))
+            .thenReturn(Arrays.asList(first, second));
+        
+        CursorPage<PatientChange> page = changeFeedService.findChanges(null, 1);
+        
+        assertTrue(page.isHasNext());
+        assertEquals(lastChange, cursorTime(page.getNextCursor()));
+    }
+    
+    // Helper methods
+    private static void assertSettled(String cursor) {
+        LocalDateTime horizon = LocalDateTime.now().minusNanos(SETTLE_MILLIS * 1_000_000);
+        LocalDateTime timestamp = cursorTime(cursor);
+        assertFalse(timestamp.isAfter(horizon), "cursor beyond the settle horizon: " + timestamp);
+        assertTrue(timestamp.isAfter(horizon.minusMinutes(1)), "cursor not advanced: " + timestamp);
+    }
+    
+    private static String cursorAt(LocalDateTime timestamp, long id) {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static LocalDateTime cursorTime(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        return LocalDateTime.parse(raw.substring(0, raw.lastIndexOf('|')));
+    }
+}
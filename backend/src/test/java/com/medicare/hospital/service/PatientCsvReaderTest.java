@@ -0,0 +1,136 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.dto.PatientDTO;
+import com.medicare.hospital.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parsing of quoted fields, line endings and malformed rows in patient CSV files
+ */
+class PatientCsvReaderTest {
+    
+    private static final String HEADER = "firstName,lastName,email,dateOfBirth,gender,address";
+    
+    @Test
+    void readsPlainRowsInHeaderOrder() {
+        List<PatientImportService.ImportRow> rows = read(
+            "email,lastName,firstName,gender,dateOfBirth\n"
+                + "ann@example.com,Smith,Ann,female,1980-02-29\n");
+        
+        assertEquals(1, rows.size());
+        PatientDTO patient = patient(rows.get(0));
+        assertEquals("Ann", patient.getFirstName());
+        assertEquals("Smith", patient.getLastName());
+        assertEquals("ann@example.com", patient.getEmail());
+        assertEquals(LocalDate.of(1980, 2, 29), patient.getDateOfBirth());
+        assertEquals(Patient.Gender.FEMALE, patient.getGender());
+        assertNull(patient.getPhone());
+    }
+    
+    @Test
+    void quotedFieldsKeepEmbeddedCommasAndQuotes() {
+        List<PatientImportService.ImportRow> rows = read(HEADER + "\n"
+            + "\"Ann\",\"O'Brien, Jr.\",ann@example.com,1980-01-01,FEMALE,\"12 \"\"Elm\"\" St, Apt 4\"\n");
+        
+        PatientDTO patient = patient(rows.get(0));
+        assertEquals("Ann", patient.getFirstName());
+        assertEquals("O'Brien, Jr.", patient.getLastName());
+        assertEquals("12 \"Elm\" St, Apt 4", patient.getAddress());
+    }
+    
+    @Test
+    void quotedFieldsSpanLineBreaks() {
+        List<PatientImportService.ImportRow> rows = read(HEADER + "\n"
+            + "Ann,Smith,ann@example.com,1980-01-01,FEMALE,\"12 Elm St\nSpringfield\"\n"
+            + "Bob,Jones,bob@example.com,1975-05-05,MALE,\n");
+        
+        assertEquals(2, rows.size());
+        assertEquals("12 Elm St\nSpringfield", patient(rows.get(0)).getAddress());
+        assertEquals("Bob", patient(rows.get(1)).getFirstName());
+        assertEquals(2, rows.get(1).getNumber());
+    }
+    
+    @Test
+    void crlfLineEndingsAreNotPartOfTheLastField() {
+        List<PatientImportService.ImportRow> rows = read(HEADER + "\r\n"
+            + "Ann,Smith,ann@example.com,1980-01-01,FEMALE,12 Elm St\r\n"
+            + "Bob,Jones,bob@example.com,1975-05-05,MALE,\"4 Oak Ave\r\nSpringfield\"\r\n");
+        
+        assertEquals(2, rows.size());
+        assertEquals("12 Elm St", patient(rows.get(0)).getAddress());
+        assertEquals(Patient.Gender.MALE, patient(rows.get(1)).getGender());
+        assertEquals("4 Oak Ave\nSpringfield", patient(rows.get(1)).getAddress());
+    }
+    
+    @Test
+    void trailingNewlineAndBlankLinesDoNotProduceRows() {
+        assertEquals(1, read(HEADER + "\nAnn,Smith,ann@example.com,,,\n").size());
+        assertEquals(1, read(HEADER + "\nAnn,Smith,ann@example.com,,,").size());
+        assertEquals(1, read(HEADER + "\r\n\r\nAnn,Smith,ann@example.com,,,\r\n\r\n  \r\n").size());
+        assertTrue(read(HEADER + "\n").isEmpty());
+    }
+    
+    @Test
+    void blankAndMissingFieldsAreNull() {
+        PatientDTO patient = patient(read(HEADER + "\n Ann ,\"  \",ann@example.com\n").get(0));
+        
+        assertEquals("Ann", patient.getFirstName());
+        assertNull(patient.getLastName());
+        assertNull(patient.getDateOfBirth());
+        assertNull(patient.getAddress());
+    }
+    
+    @Test
+    void unparseableRowIsReportedAndReadingContinues() {
+        List<PatientImportService.ImportRow> rows = read(HEADER + "\n"
+            + "Ann,Smith,ann@example.com,1980-13-01,FEMALE,\n"
+            + "Bob,Jones,bob@example.com,1975-05-05,ROBOT,\n"
+            + "Cy,Young,cy@example.com,1990-07-07,OTHER,\n");
+        
+        assertEquals(3, rows.size());
+        assertNull(rows.get(0).getPatient());
+        assertTrue(rows.get(0).getError().startsWith("Unparseable row"));
+        assertNull(rows.get(1).getPatient());
+        assertEquals(2, rows.get(1).getNumber());
+        assertEquals("Cy", patient(rows.get(2)).getFirstName());
+    }
+    
+    @Test
+    void headerMustNameEmailColumn() {
+        assertThrows(IllegalArgumentException.class, () -> read(""));
+        assertThrows(IllegalArgumentException.class, () -> read("\n\n"));
+        assertThrows(IllegalArgumentException.class, () -> read("firstName,lastName\nAnn,Smith\n"));
+    }
+    
+    @Test
+    void nextPastTheLastRowThrows() {
+        PatientCsvReader reader = new PatientCsvReader(new StringReader(HEADER + "\n"));
+        
+        assertFalse(reader.hasNext());
+        assertThrows(NoSuchElementException.class, reader::next);
+    }
+    
+    // Helper methods
+    private static List<PatientImportService.ImportRow> read(String csv) {
+        List<PatientImportService.ImportRow> rows = new ArrayList<>();
+        new PatientCsvReader(new StringReader(csv)).forEachRemaining(rows::add);
+        return rows;
+    }
+    
+    private static PatientDTO patient(PatientImportService.ImportRow row) {
+        assertNull(row.getError(), row.getError());
+        return row.getPatient();
+    }
+}
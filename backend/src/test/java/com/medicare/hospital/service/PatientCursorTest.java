@@ -0,0 +1,88 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.dto.PatientSummary;
+import com.medicare.hospital.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Encoding and decoding of keyset pagination cursors
+ */
+class PatientCursorTest {
+    
+    @Test
+    void idCursorRoundTrips() {
+        PatientCursor decoded = roundTrip(PatientCursor.SortKey.ID, summary(42L, "Smith", null));
+        
+        assertEquals(PatientCursor.SortKey.ID, decoded.getSortKey());
+        assertEquals("", decoded.getValue());
+        assertEquals(42L, decoded.getId());
+    }
+    
+    @Test
+    void lastNameCursorKeepsSeparatorsAndNonAsciiCharacters() {
+        PatientCursor decoded = roundTrip(PatientCursor.SortKey.LAST_NAME, summary(7L, "Müller|Ñúñez", null));
+        
+        assertEquals(PatientCursor.SortKey.LAST_NAME, decoded.getSortKey());
+        assertEquals("Müller|Ñúñez", decoded.getValue());
+        assertEquals(7L, decoded.getId());
+    }
+    
+    @Test
+    void createdAtCursorRoundTrips() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 2, 29, 13, 45, 7, 123456000);
+        
+        PatientCursor decoded = roundTrip(PatientCursor.SortKey.CREATED_AT, summary(9L, "Smith", createdAt));
+        
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertEquals(9L, decoded.getId());
+    }
+    
+    @Test
+    void createdAtCursorOfPatientWithoutCreationTimeRoundTrips() {
+        PatientCursor decoded = roundTrip(PatientCursor.SortKey.CREATED_AT, summary(3L, "Smith", null));
+        
+        assertEquals(PatientCursor.SortKey.CREATED_AT, decoded.getSortKey());
+        assertNull(decoded.getCreatedAt());
+        assertEquals(3L, decoded.getId());
+    }
+    
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String token = PatientCursor.after(PatientCursor.SortKey.LAST_NAME, summary(1L, "??>>", null)).encode();
+        
+        assertFalse(token.contains("+") || token.contains("/") || token.contains("="));
+    }
+    
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PatientCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> PatientCursor.decode(encode("ID|12")));
+        assertThrows(IllegalArgumentException.class, () -> PatientCursor.decode(encode("NAME||12")));
+        assertThrows(IllegalArgumentException.class, () -> PatientCursor.decode(encode("ID||twelve")));
+        assertThrows(IllegalArgumentException.class, () -> PatientCursor.decode(encode("CREATED_AT|yesterday|12")));
+    }
+    
+    // Helper methods
+    private static PatientCursor roundTrip(PatientCursor.SortKey sortKey, PatientSummary patient) {
+        return PatientCursor.decode(PatientCursor.after(sortKey, patient).encode());
+    }
+    
+    private static PatientSummary summary(Long id, String lastName, LocalDateTime createdAt) {
+        return new PatientSummary(id, "Ann", lastName, "ann@example.com", null,
+            LocalDate.of(1980, 1, 1), Patient.Gender.FEMALE, createdAt);
+    }
+    
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,163 @@
+package com.medicare.hospital.service;
+
+import com.medicare.hospital.dto.CursorPage;
+import com.medicare.hospital.dto.PatientSummary;
+import com.medicare.hospital.model.Patient;
+import com.medicare.hospital.repository.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset pagination against a database that changes between slices
+ * 
+ * A listing must return every patient that existed when it started exactly
+ * once, in sort order, however many patients are inserted meanwhile.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:cursor;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false",
+    "logging.level.com.medicare.hospital=WARN",
+    "logging.level.org.hibernate.SQL=WARN",
+    "logging.level.org.hibernate.orm.jdbc.bind=WARN"
+})
+class PatientServiceCursorTest {
+    
+    private static final Comparator<PatientSummary> BY_LAST_NAME =
+        Comparator.comparing(PatientSummary::getLastName).thenComparing(PatientSummary::getId);
+    private static final Comparator<PatientSummary> BY_CREATED_AT =
+        Comparator.comparing(PatientSummary::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(PatientSummary::getId);
+    
+    @Autowired
+    private PatientService patientService;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private final AtomicInteger sequence = new AtomicInteger();
+    
+    @BeforeEach
+    void setUp() {
+        patientRepository.deleteAllInBatch();
+        for (String lastName : new String[] { "Baker", "Adams", "Young", "Miller", "Adams", "Clark", "Zane",
+                                              "Nolan", "Evans", "Miller", "Harris", "Owens" }) {
+            insert(lastName);
+        }
+    }
+    
+    @Test
+    void idListingSeesEveryPatientOnceWhileRowsAreInserted() {
+        Set<Long> existing = existingIds();
+        
+        List<PatientSummary> listed = listAll(PatientCursor.SortKey.ID, () -> insert("Later"));
+        
+        assertListing(existing, listed, Comparator.comparing(PatientSummary::getId));
+    }
+    
+    @Test
+    void lastNameListingSeesEveryPatientOnceWhileRowsAreInserted() {
+        Set<Long> existing = existingIds();
+        
+        // Alternately insert before and after any position the listing can be at
+        AtomicBoolean before = new AtomicBoolean();
+        List<PatientSummary> listed = listAll(PatientCursor.SortKey.LAST_NAME,
+            () -> insert(before.getAndSet(!before.get()) ? "Aaron" : "Zzyzx"));
+        
+        assertListing(existing, listed, BY_LAST_NAME);
+    }
+    
+    @Test
+    void createdAtListingIncludesPatientsWithoutCreationTime() {
+        List<Long> ids = new ArrayList<>(existingIds());
+        jdbcTemplate.update("UPDATE patients SET created_at = NULL WHERE id IN (?, ?, ?)", ids.get(0), ids.get(4), ids.get(7));
+        Set<Long> existing = existingIds();
+        
+        List<PatientSummary> listed = listAll(PatientCursor.SortKey.CREATED_AT, () -> insert("Later"));
+        
+        assertListing(existing, listed, BY_CREATED_AT);
+        assertNull(listed.get(0).getCreatedAt());
+        assertNull(listed.get(2).getCreatedAt());
+    }
+    
+    @Test
+    void lastNameListingSeesEveryPatientOnceWithConcurrentWriter() throws InterruptedException {
+        Set<Long> existing = existingIds();
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 40 && !stop.get(); i++) {
+                insert(i % 2 == 0 ? "Aaron" : "Zzyzx");
+            }
+        });
+        writer.start();
+        try {
+            List<PatientSummary> listed = listAll(PatientCursor.SortKey.LAST_NAME, () -> { });
+            assertListing(existing, listed, BY_LAST_NAME);
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+    
+    // Helper methods
+    private List<PatientSummary> listAll(PatientCursor.SortKey sortKey, Runnable betweenSlices) {
+        List<PatientSummary> listed = new ArrayList<>();
+        String cursor = null;
+        CursorPage<PatientSummary> slice;
+        do {
+            slice = patientService.findSlice(sortKey, cursor, 3);
+            listed.addAll(slice.getContent());
+            cursor = slice.getNextCursor();
+            betweenSlices.run();
+        } while (slice.isHasNext());
+        return listed;
+    }
+    
+    private void assertListing(Set<Long> existing, List<PatientSummary> listed, Comparator<PatientSummary> order) {
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < listed.size(); i++) {
+            assertTrue(seen.add(listed.get(i).getId()), "listed twice: " + listed.get(i).getId());
+            if (i > 0) {
+                assertTrue(order.compare(listed.get(i - 1), listed.get(i)) < 0, "out of order at " + i);
+            }
+        }
+        assertTrue(seen.containsAll(existing), "missing: " + existing.stream()
+            .filter(id -> !seen.contains(id)).collect(Collectors.toList()));
+    }
+    
+    private Set<Long> existingIds() {
+        return patientRepository.findAll().stream()
+            .map(Patient::getId)
+            .sorted()
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+    
+    private void insert(String lastName) {
+        int n = sequence.incrementAndGet();
+        patientService.save(new Patient("Pat", lastName, "cursor" + n + "@example.com", null,
+            LocalDate.of(1970, 1, 1).plusDays(n), Patient.Gender.OTHER));
+    }
+}
@@ -0,0 +1,75 @@
+package com.medicare.hospital.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Similarity functions checked against published reference values
+ */
+class PatientSimilarityTest {
+    
+    @Test
+    void soundexMatchesReferenceCodes() {
+        assertEquals(code("R163"), PatientSimilarity.soundex("robert"));
+        assertEquals(code("R163"), PatientSimilarity.soundex("rupert"));
+        assertEquals(code("R150"), PatientSimilarity.soundex("rubin"));
+        assertEquals(code("T522"), PatientSimilarity.soundex("tymczak"));
+        assertEquals(code("A261"), PatientSimilarity.soundex("ashcraft"));
+        assertEquals(code("A261"), PatientSimilarity.soundex("ashcroft"));
+        assertEquals(code("P236"), PatientSimilarity.soundex("pfister"));
+        assertEquals(code("H555"), PatientSimilarity.soundex("honeyman"));
+        assertEquals(code("L000"), PatientSimilarity.soundex("lee"));
+        assertEquals(-1, PatientSimilarity.soundex(""));
+    }
+    
+    @Test
+    void jaroWinklerMatchesReferenceValues() {
+        assertEquals(0.961, PatientSimilarity.jaroWinkler("martha", "marhta"), 0.0005);
+        assertEquals(0.840, PatientSimilarity.jaroWinkler("dwayne", "duane"), 0.0005);
+        assertEquals(0.813, PatientSimilarity.jaroWinkler("dixon", "dicksonx"), 0.0005);
+        assertEquals(1.0, PatientSimilarity.jaroWinkler("smith", "smith"));
+        assertEquals(0.0, PatientSimilarity.jaroWinkler("abc", "xyz"));
+        assertEquals(0.0, PatientSimilarity.jaroWinkler("", ""));
+        assertEquals(0.0, PatientSimilarity.jaroWinkler("smith", ""));
+    }
+    
+    @Test
+    void jaroWinklerIsSymmetric() {
+        assertEquals(PatientSimilarity.jaroWinkler("marhta", "martha"),
+            PatientSimilarity.jaroWinkler("martha", "marhta"), 1e-12);
+        assertEquals(PatientSimilarity.jaroWinkler("dicksonx", "dixon"),
+            PatientSimilarity.jaroWinkler("dixon", "dicksonx"), 1e-12);
+    }
+    
+    @Test
+    void birthDateSimilarityAllowsOneEntryError() {
+        LocalDate date = LocalDate.of(1987, 3, 11);
+        
+        assertEquals(1.0, PatientSimilarity.birthDateSimilarity(date, date));
+        assertEquals(0.6, PatientSimilarity.birthDateSimilarity(date, LocalDate.of(1987, 11, 3)));
+        assertEquals(0.6, PatientSimilarity.birthDateSimilarity(date, LocalDate.of(1978, 3, 11)));
+        assertEquals(0.6, PatientSimilarity.birthDateSimilarity(date, LocalDate.of(1987, 4, 11)));
+        assertEquals(0.6, PatientSimilarity.birthDateSimilarity(date, LocalDate.of(1987, 3, 12)));
+        assertEquals(0.0, PatientSimilarity.birthDateSimilarity(date, LocalDate.of(1987, 4, 12)));
+        assertEquals(0.0, PatientSimilarity.birthDateSimilarity(date, LocalDate.of(1988, 11, 3)));
+    }
+    
+    @Test
+    void normalizeNameKeepsOnlyLowercaseLetters() {
+        assertEquals("obriennunez", PatientSimilarity.normalizeName("O'Brien-Núñez"));
+        assertEquals("", PatientSimilarity.normalizeName(null));
+        assertEquals("jsmith", PatientSimilarity.emailLetters("j.smith.1987@example.org"));
+    }
+    
+    // Helper methods
+    private static int code(String soundex) {
+        int code = Character.toLowerCase(soundex.charAt(0)) - 'a';
+        for (int i = 1; i < soundex.length(); i++) {
+            code = code * 7 + (soundex.charAt(i) - '0');
+        }
+        return code;
+    }
+}